@@ -0,0 +1,134 @@
+package com.oryzem.backend.core.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: each timeout goes into the bucket of its deadline tick modulo the wheel
+ * size, so scheduling and cancelling are O(1) and advancing one tick only visits one bucket,
+ * however many timeouts are pending. Deadlines are rounded up to the tick, so a timeout never
+ * fires early and fires at most one tick late.
+ *
+ * <p>The wheel is passive: its owner calls {@link #advance} periodically, from one thread at a
+ * time. Cancelled timeouts are dropped the next time their bucket is visited.
+ */
+public final class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final List<Timeout<T>>[] buckets;
+    private final int mask;
+    private final AtomicInteger pending = new AtomicInteger();
+    // Every tick up to and including this one has been expired. Written under the bucket lock.
+    private volatile long processedTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize < 1) {
+            throw new IllegalArgumentException("wheelSize must be positive");
+        }
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(Math.min(wheelSize - 1, (1 << 29) - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.buckets = new List[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        long deadlineTick = Math.max(0, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        Timeout<T> timeout = new Timeout<>(this, value, deadlineTick);
+        pending.incrementAndGet();
+        while (true) {
+            // A deadline already passed goes into the next tick to be processed.
+            long target = Math.max(deadlineTick, processedTick + 1);
+            List<Timeout<T>> bucket = buckets[(int) (target & mask)];
+            synchronized (bucket) {
+                if (processedTick < target) {
+                    bucket.add(timeout);
+                    return timeout;
+                }
+            }
+        }
+    }
+
+    /**
+     * Expires every timeout whose deadline is at or before {@code nowMillis}, handing its value to
+     * {@code onExpired} outside of any lock. Returns the number of timeouts expired.
+     */
+    public synchronized int advance(long nowMillis, Consumer<T> onExpired) {
+        long currentTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        long from = processedTick + 1;
+        if (currentTick < from) {
+            return 0;
+        }
+        // After a long pause every bucket is visited once rather than once per missed tick.
+        if (currentTick - from >= buckets.length) {
+            from = currentTick - buckets.length + 1;
+        }
+
+        List<T> expired = new ArrayList<>();
+        for (long tick = from; tick <= currentTick; tick++) {
+            List<Timeout<T>> bucket = buckets[(int) (tick & mask)];
+            synchronized (bucket) {
+                int kept = 0;
+                for (int i = 0; i < bucket.size(); i++) {
+                    Timeout<T> timeout = bucket.get(i);
+                    if (timeout.deadlineTick <= currentTick) {
+                        if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                            pending.decrementAndGet();
+                            expired.add(timeout.value);
+                        }
+                    } else if (timeout.state.get() == Timeout.PENDING) {
+                        bucket.set(kept++, timeout);
+                    }
+                }
+                bucket.subList(kept, bucket.size()).clear();
+                processedTick = tick;
+            }
+        }
+        expired.forEach(onExpired);
+        return expired.size();
+    }
+
+    /** Timeouts scheduled and neither expired nor cancelled yet. */
+    public int pending() {
+        return pending.get();
+    }
+
+    public static final class Timeout<T> {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final HashedTimingWheel<T> wheel;
+        private final T value;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Timeout(HashedTimingWheel<T> wheel, T value, long deadlineTick) {
+            this.wheel = wheel;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Returns true if the timeout was still pending and will now never fire.
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                wheel.pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.oryzem.backend.core.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed pool of reentrant locks addressed by key hash. Unrelated keys rarely share a stripe, and
+ * {@link #lockAll} takes several stripes in ascending index order, so two callers locking
+ * overlapping key sets cannot deadlock.
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be positive");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(Math.min(stripeCount - 1, (1 << 29) - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Held lock(String key) {
+        int stripe = stripe(key);
+        stripes[stripe].lock();
+        return new Held(new int[]{stripe});
+    }
+
+    public Held lockAll(Collection<String> keys) {
+        int[] indexes = keys.stream().mapToInt(this::stripe).distinct().sorted().toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        return new Held(indexes);
+    }
+
+    private int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /** Locks taken by one call; release them with try-with-resources. */
+    public final class Held implements AutoCloseable {
+
+        private final int[] indexes;
+
+        private Held(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        @Override
+        public void close() {
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+}
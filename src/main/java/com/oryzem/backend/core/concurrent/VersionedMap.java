@@ -0,0 +1,114 @@
+package com.oryzem.backend.core.concurrent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Multi-version map for consistent whole-map reads next to frequent writes. Each publish installs
+ * a batch of values under the next version number; a snapshot picks a committed version and reads,
+ * for every key, the newest value at or before it, without taking the writers' lock. Values must
+ * be treated as immutable once published.
+ *
+ * <p>Only the two newest versions of a key are kept. A reader that needs an older one, because
+ * the key was written twice during its scan, starts over at the newer version; after a few such
+ * attempts it reads under the lock instead, so a snapshot always completes.
+ */
+public final class VersionedMap<K, V> {
+
+    private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+    private final ConcurrentHashMap<K, Node<V>> heads = new ConcurrentHashMap<>();
+    // Every node with a version at or below this one is installed. Written last, under the lock.
+    private volatile long version;
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Installs all changes as one new version and returns it.
+     */
+    public synchronized long publish(Map<K, V> changes) {
+        long next = version + 1;
+        changes.forEach((key, value) -> install(key, value, next));
+        version = next;
+        return next;
+    }
+
+    /**
+     * Replaces the value of an existing key with {@code update} applied to it, as a new version.
+     * Does nothing when the key is absent.
+     */
+    public synchronized long update(K key, UnaryOperator<V> update) {
+        Node<V> head = heads.get(key);
+        if (head == null) {
+            return version;
+        }
+        long next = version + 1;
+        install(key, update.apply(head.value), next);
+        version = next;
+        return next;
+    }
+
+    public Snapshot<K, V> snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            Snapshot<K, V> snapshot = read(version);
+            if (snapshot != null) {
+                return snapshot;
+            }
+        }
+        synchronized (this) {
+            return read(version);
+        }
+    }
+
+    private void install(K key, V value, long nodeVersion) {
+        Node<V> head = heads.get(key);
+        if (head != null) {
+            // Keep the current value for readers of the previous version; drop anything older.
+            head.previous = null;
+        }
+        heads.put(key, new Node<>(nodeVersion, value, head));
+    }
+
+    /** Reads the map as of {@code at}, or returns null if a needed version was already dropped. */
+    private Snapshot<K, V> read(long at) {
+        Map<K, V> entries = new HashMap<>(Math.max(16, heads.size() * 4 / 3 + 1));
+        for (Map.Entry<K, Node<V>> entry : heads.entrySet()) {
+            Node<V> node = entry.getValue();
+            while (node != null && node.version > at) {
+                Node<V> previous = node.previous;
+                if (previous == null && !node.first) {
+                    return null;
+                }
+                node = previous;
+            }
+            if (node != null) {
+                entries.put(entry.getKey(), node.value);
+            }
+        }
+        return new Snapshot<>(at, Collections.unmodifiableMap(entries));
+    }
+
+    public record Snapshot<K, V>(long version, Map<K, V> entries) {
+    }
+
+    private static final class Node<V> {
+
+        private final long version;
+        private final V value;
+        // The key had no value before this node.
+        private final boolean first;
+        private volatile Node<V> previous;
+
+        private Node(long version, V value, Node<V> previous) {
+            this.version = version;
+            this.value = value;
+            this.first = previous == null;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.oryzem.backend.core.ids;
+
+public interface IdGenerator {
+
+    String nextId();
+}
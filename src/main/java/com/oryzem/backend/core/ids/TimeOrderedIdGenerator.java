@@ -0,0 +1,50 @@
+package com.oryzem.backend.core.ids;
+
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 (RFC 9562) identifiers: a 48-bit millisecond timestamp, a 12-bit sequence that keeps
+ * ids minted within the same millisecond strictly increasing, and 62 bits of thread-local
+ * entropy. The canonical string form therefore sorts by creation time.
+ */
+@Component
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final TimeOrderedIdGenerator SHARED = new TimeOrderedIdGenerator();
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC_4122 = 0x8000000000000000L;
+    private static final long LOW_62_BITS = 0x3FFFFFFFFFFFFFFFL;
+
+    // (epochMillis << SEQUENCE_BITS) | sequence of the last id handed out, shared by all instances
+    private static final AtomicLong LAST_TIMESTAMP_AND_SEQUENCE = new AtomicLong();
+
+    public static TimeOrderedIdGenerator shared() {
+        return SHARED;
+    }
+
+    @Override
+    public String nextId() {
+        return nextUuid().toString();
+    }
+
+    public UUID nextUuid() {
+        long candidate = System.currentTimeMillis() << SEQUENCE_BITS;
+        // Sequence overflow carries into the timestamp, borrowing from the next millisecond.
+        long timestampAndSequence = LAST_TIMESTAMP_AND_SEQUENCE.accumulateAndGet(
+                candidate,
+                (last, now) -> now > last ? now : last + 1
+        );
+
+        long millis = timestampAndSequence >>> SEQUENCE_BITS;
+        long sequence = timestampAndSequence & ((1L << SEQUENCE_BITS) - 1);
+        long mostSignificantBits = (millis << 16) | VERSION_7 | sequence;
+        long leastSignificantBits = VARIANT_RFC_4122 | (ThreadLocalRandom.current().nextLong() & LOW_62_BITS);
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
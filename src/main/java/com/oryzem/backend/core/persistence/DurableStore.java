@@ -0,0 +1,28 @@
+package com.oryzem.backend.core.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * An in-memory store whose mutations are journaled to the {@link WriteAheadLog}. Records must be
+ * full-state upserts so that replaying them over a fuzzy snapshot converges on the latest state.
+ */
+public interface DurableStore {
+
+    String storeName();
+
+    void writeSnapshot(SnapshotSink sink) throws IOException;
+
+    void apply(String tenantScope, DataInput input) throws IOException;
+
+    @FunctionalInterface
+    interface RecordEncoder {
+        void encode(DataOutput output) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface SnapshotSink {
+        void write(String tenantScope, RecordEncoder encoder) throws IOException;
+    }
+}
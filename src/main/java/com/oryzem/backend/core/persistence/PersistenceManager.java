@@ -0,0 +1,236 @@
+package com.oryzem.backend.core.persistence;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Restores the durable stores at startup (latest snapshot, then the log segments written after it)
+ * and periodically compacts the log into a new snapshot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.persistence", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PersistenceManager implements SmartInitializingSingleton {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+    private static final long MAP_WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final WriteAheadLog writeAheadLog;
+    private final List<DurableStore> stores;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            long nextSegment = recover();
+            writeAheadLog.open(nextSegment);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to restore persisted state from " + writeAheadLog.directory(), ex);
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.persistence.snapshot-interval-seconds:300}000",
+            fixedDelayString = "${app.persistence.snapshot-interval-seconds:300}000"
+    )
+    public void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException ex) {
+            log.error("Failed to write persistence snapshot", ex);
+        }
+    }
+
+    /**
+     * Writes a snapshot of every store and drops the log segments it supersedes. The snapshot is
+     * taken while writes continue, so it may already contain some records of the newest segment;
+     * replaying them again on recovery is harmless because records are full-state upserts. Records
+     * of the dropped segments are all visible to it, since rotation waits for journaled mutations.
+     */
+    public synchronized void snapshot() throws IOException {
+        Path directory = writeAheadLog.directory();
+        long segment = writeAheadLog.rotate();
+        long startedAt = System.nanoTime();
+
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", segment) + ".tmp");
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_BYTES)) {
+            long[] written = {0};
+            for (DurableStore store : stores) {
+                store.writeSnapshot((tenantScope, encoder) -> {
+                    output.write(WriteAheadLog.frame(store.storeName(), tenantScope, encoder));
+                    written[0]++;
+                });
+            }
+            output.flush();
+            channel.force(true);
+            records = written[0];
+        }
+        Files.move(temporary, snapshotPath(directory, segment), StandardCopyOption.ATOMIC_MOVE);
+
+        for (long older : listNumbers(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (older < segment) {
+                Files.deleteIfExists(snapshotPath(directory, older));
+            }
+        }
+        for (long older : listNumbers(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (older < segment) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(directory, older));
+            }
+        }
+        log.info("Wrote persistence snapshot {} with {} records in {} ms",
+                segment, records, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    long recover() throws IOException {
+        Path directory = writeAheadLog.directory();
+        Files.createDirectories(directory);
+        Map<String, DurableStore> storesByName = new HashMap<>();
+        for (DurableStore store : stores) {
+            storesByName.put(store.storeName(), store);
+        }
+
+        long startedAt = System.nanoTime();
+        long records = 0;
+        List<Long> snapshots = listNumbers(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        long snapshotSegment = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        if (snapshotSegment > 0) {
+            records += replay(snapshotPath(directory, snapshotSegment), storesByName, false);
+        }
+
+        List<Long> segments = listNumbers(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX).stream()
+                .filter(segment -> segment >= snapshotSegment)
+                .toList();
+        for (int i = 0; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            records += replay(WriteAheadLog.segmentPath(directory, segments.get(i)), storesByName, last);
+        }
+
+        long lastSegment = segments.isEmpty() ? snapshotSegment : segments.get(segments.size() - 1);
+        if (records > 0) {
+            log.info("Restored {} persisted records (snapshot {}, {} log segments) in {} ms",
+                    records, snapshotSegment, segments.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        }
+        return Math.max(lastSegment, snapshotSegment) + 1;
+    }
+
+    /**
+     * Applies every intact record of the file, reading it through memory-mapped windows. A torn or
+     * corrupt tail is expected after a crash in the newest segment and is truncated away; anywhere
+     * else it is an error.
+     */
+    private long replay(Path file, Map<String, DurableStore> storesByName, boolean tolerateTornTail) throws IOException {
+        long applied = 0;
+        long position = 0;
+        String problem = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CRC32 crc = new CRC32();
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            while (position < size) {
+                if (size - position < WriteAheadLog.HEADER_BYTES) {
+                    problem = "truncated header";
+                    break;
+                }
+                if (window == null || position + WriteAheadLog.HEADER_BYTES > windowStart + window.capacity()) {
+                    windowStart = position;
+                    window = map(channel, position, size);
+                }
+                int offset = (int) (position - windowStart);
+                int length = window.getInt(offset);
+                int checksum = window.getInt(offset + Integer.BYTES);
+                if (length <= 0
+                        || length > WriteAheadLog.MAX_RECORD_BYTES
+                        || position + WriteAheadLog.HEADER_BYTES + length > size) {
+                    problem = "invalid length " + length;
+                    break;
+                }
+                if (position + WriteAheadLog.HEADER_BYTES + length > windowStart + window.capacity()) {
+                    windowStart = position;
+                    window = map(channel, position, size);
+                    offset = 0;
+                }
+
+                ByteBuffer payload = window.slice(offset + WriteAheadLog.HEADER_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    problem = "checksum mismatch";
+                    break;
+                }
+
+                ByteBufferDataInput record = new ByteBufferDataInput(payload);
+                String storeName = record.readUTF();
+                String tenantScope = record.readUTF();
+                DurableStore store = storesByName.get(storeName);
+                if (store == null) {
+                    log.warn("Skipping record for unknown store {} in {}", storeName, file.getFileName());
+                } else {
+                    store.apply(tenantScope, record);
+                    applied++;
+                }
+                position += WriteAheadLog.HEADER_BYTES + length;
+            }
+        }
+
+        if (problem != null) {
+            if (!tolerateTornTail) {
+                throw new IOException("Corrupt record in " + file + " at offset " + position + ": " + problem);
+            }
+            log.warn("Truncating torn tail of {} at offset {} ({})", file.getFileName(), position, problem);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(position);
+                channel.force(true);
+            }
+        }
+        return applied;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAP_WINDOW_BYTES));
+    }
+
+    private static Path snapshotPath(Path directory, long segment) {
+        return directory.resolve(SNAPSHOT_PREFIX + String.format("%020d", segment) + SNAPSHOT_SUFFIX);
+    }
+
+    private static List<Long> listNumbers(Path directory, String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> name.substring(prefix.length(), name.length() - suffix.length()))
+                    .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.oryzem.backend.core.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.persistence")
+public record PersistenceProperties(
+        boolean enabled,
+        String directory,
+        Boolean syncWrites,
+        long snapshotIntervalSeconds
+) {
+    private static final String DEFAULT_DIRECTORY = "data";
+    private static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 300;
+
+    public PersistenceProperties {
+        directory = directory == null || directory.isBlank() ? DEFAULT_DIRECTORY : directory.trim();
+        syncWrites = syncWrites == null || syncWrites;
+        snapshotIntervalSeconds = snapshotIntervalSeconds > 0 ? snapshotIntervalSeconds : DEFAULT_SNAPSHOT_INTERVAL_SECONDS;
+    }
+}
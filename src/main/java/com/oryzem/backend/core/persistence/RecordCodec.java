@@ -0,0 +1,69 @@
+package com.oryzem.backend.core.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+
+/**
+ * Nullable field helpers shared by the {@link DurableStore} record formats.
+ */
+public final class RecordCodec {
+
+    private RecordCodec() {
+    }
+
+    public static void writeString(DataOutput output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInput input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    public static void writeInstant(DataOutput output, Instant value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeLong(value.getEpochSecond());
+            output.writeInt(value.getNano());
+        }
+    }
+
+    public static Instant readInstant(DataInput input) throws IOException {
+        return input.readBoolean() ? Instant.ofEpochSecond(input.readLong(), input.readInt()) : null;
+    }
+
+    public static void writeDecimal(DataOutput output, BigDecimal value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            byte[] unscaled = value.unscaledValue().toByteArray();
+            output.writeInt(value.scale());
+            output.writeByte(unscaled.length);
+            output.write(unscaled);
+        }
+    }
+
+    public static BigDecimal readDecimal(DataInput input) throws IOException {
+        if (!input.readBoolean()) {
+            return null;
+        }
+        int scale = input.readInt();
+        byte[] unscaled = new byte[input.readUnsignedByte()];
+        input.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    public static <E extends Enum<E>> void writeEnum(DataOutput output, E value) throws IOException {
+        writeString(output, value == null ? null : value.name());
+    }
+
+    public static <E extends Enum<E>> E readEnum(DataInput input, Class<E> type) throws IOException {
+        String name = readString(input);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
@@ -0,0 +1,292 @@
+package com.oryzem.backend.core.persistence;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of store mutations, split into numbered segment files.
+ *
+ * <p>Callers enqueue a record while holding whatever lock orders their mutation, then wait for
+ * durability outside it. A single writer thread drains everything enqueued so far with one
+ * gathering write and one fsync, so concurrent writers share the cost of a sync (group commit).
+ *
+ * <p>A store that appends before its change becomes visible, such as one journaling from inside a
+ * map's compute, wraps the append and the install in {@link #journaled}. Rotation waits for those
+ * to finish, so a snapshot taken after it sees every record of the segments it supersedes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.persistence", name = "enabled", havingValue = "true")
+@Slf4j
+public class WriteAheadLog {
+
+    static final int HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final Object lock = new Object();
+    // Held while a batch is taken from the queue and written, so batches reach disk in enqueue order.
+    private final ReentrantLock ioLock = new ReentrantLock();
+    // Shared by journaled mutations, exclusive for rotation.
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean closing;
+    private IOException failure;
+
+    private FileChannel channel;
+    private long segment;
+    private Thread writer;
+
+    public WriteAheadLog(PersistenceProperties properties) {
+        this.directory = Path.of(properties.directory());
+        this.syncWrites = properties.syncWrites();
+    }
+
+    Path directory() {
+        return directory;
+    }
+
+    /**
+     * Starts appending to the given segment. Called once recovery has replayed the existing files.
+     */
+    void open(long firstSegment) throws IOException {
+        Files.createDirectories(directory);
+        ioLock.lock();
+        try {
+            segment = firstSegment;
+            channel = openSegment(firstSegment);
+        } finally {
+            ioLock.unlock();
+        }
+        writer = new Thread(this::runWriter, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Enqueues a record and returns its sequence; it is durable once {@link #awaitDurable} returns.
+     */
+    public long append(DurableStore store, String tenantScope, DurableStore.RecordEncoder encoder) {
+        ByteBuffer frame;
+        try {
+            frame = ByteBuffer.wrap(frame(store.storeName(), tenantScope, encoder));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode " + store.storeName() + " record", ex);
+        }
+
+        synchronized (lock) {
+            if (failure != null || closing) {
+                throw new IllegalStateException("Write-ahead log is not accepting writes", failure);
+            }
+            pending.add(frame);
+            appendedSequence++;
+            lock.notifyAll();
+            return appendedSequence;
+        }
+    }
+
+    /**
+     * Runs a mutation that appends its record and then makes its change visible, keeping it
+     * apart from {@link #rotate}. Wait for durability after this returns, not inside it.
+     */
+    public <T> T journaled(Supplier<T> mutation) {
+        rotationLock.readLock().lock();
+        try {
+            return mutation.get();
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    public void awaitDurable(long sequence) {
+        if (!syncWrites) {
+            return;
+        }
+        synchronized (lock) {
+            while (durableSequence < sequence && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for write-ahead log", ex);
+                }
+            }
+            if (durableSequence < sequence) {
+                throw new IllegalStateException("Write-ahead log failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Flushes the active segment and switches to a new one; records appended before this call are
+     * all in segments older than the returned number, and the changes of {@link #journaled}
+     * mutations among them are visible.
+     */
+    long rotate() throws IOException {
+        long flushedSequence;
+        rotationLock.writeLock().lock();
+        ioLock.lock();
+        try {
+            List<ByteBuffer> batch;
+            synchronized (lock) {
+                batch = pending;
+                pending = new ArrayList<>();
+                flushedSequence = appendedSequence;
+            }
+            writeBatch(batch);
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+        } catch (IOException ex) {
+            fail(ex);
+            throw ex;
+        } finally {
+            ioLock.unlock();
+            rotationLock.writeLock().unlock();
+        }
+        markDurable(flushedSequence);
+        return segment;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (lock) {
+            closing = true;
+            lock.notifyAll();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ioLock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(String.format("wal-%020d.log", segment));
+    }
+
+    static byte[] frame(String storeName, String tenantScope, DurableStore.RecordEncoder encoder) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeInt(0);
+        output.writeInt(0);
+        output.writeUTF(storeName);
+        output.writeUTF(tenantScope);
+        encoder.encode(output);
+        output.flush();
+
+        byte[] frame = buffer.toByteArray();
+        int payloadLength = frame.length - HEADER_BYTES;
+        if (payloadLength > MAX_RECORD_BYTES) {
+            throw new IOException("Record too large: " + payloadLength + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(frame, HEADER_BYTES, payloadLength);
+        ByteBuffer.wrap(frame).putInt(payloadLength).putInt((int) crc.getValue());
+        return frame;
+    }
+
+    private void runWriter() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.isEmpty() && !closing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+
+            long batchSequence;
+            ioLock.lock();
+            try {
+                List<ByteBuffer> batch;
+                synchronized (lock) {
+                    batch = pending;
+                    pending = new ArrayList<>();
+                    batchSequence = appendedSequence;
+                }
+                writeBatch(batch);
+            } catch (IOException ex) {
+                log.error("Write-ahead log write failed; rejecting further writes", ex);
+                fail(ex);
+                return;
+            } finally {
+                ioLock.unlock();
+            }
+            markDurable(batchSequence);
+        }
+    }
+
+    private void writeBatch(List<ByteBuffer> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = batch.toArray(ByteBuffer[]::new);
+        ByteBuffer last = buffers[buffers.length - 1];
+        while (last.hasRemaining()) {
+            channel.write(buffers);
+        }
+        channel.force(false);
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (lock) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void fail(IOException ex) {
+        synchronized (lock) {
+            failure = ex;
+            lock.notifyAll();
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(
+                segmentPath(directory, number),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        );
+    }
+}
@@ -1,10 +1,12 @@
 package com.oryzem.backend.modules.catalog.controller;
 
 import com.oryzem.backend.modules.catalog.dto.ProductCreateRequest;
+import com.oryzem.backend.modules.catalog.dto.ProductPageResponse;
 import com.oryzem.backend.modules.catalog.dto.ProductResponse;
 import com.oryzem.backend.modules.catalog.service.ProductService;
 import com.oryzem.backend.shared.dto.ApiErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -19,10 +21,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/catalog/products")
 @RequiredArgsConstructor
@@ -67,10 +68,16 @@ public class CatalogController {
     @GetMapping
     @Operation(
             summary = "List products",
-            description = "Returns all catalog products currently registered in the platform."
+            description = "Returns catalog products from oldest to newest, one page at a time, optionally filtered by "
+                    + "category and active flag. fields= limits each product to the listed fields."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Products returned successfully"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid size, cursor or fields",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
             @ApiResponse(
                     responseCode = "401",
                     description = "Authentication required",
@@ -82,7 +89,18 @@ public class CatalogController {
                     content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
             )
     })
-    public ResponseEntity<List<ProductResponse>> listProducts() {
-        return ResponseEntity.ok(productService.listProducts());
+    public ResponseEntity<ProductPageResponse> listProducts(
+            @Parameter(description = "Filter by category (case-insensitive)", example = "PIZZA")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Filter by active flag", example = "true")
+            @RequestParam(required = false) Boolean active,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-200)", example = "50")
+            @RequestParam(defaultValue = "50") int size,
+            @Parameter(description = "Comma-separated fields to return", example = "id,name,unitPrice")
+            @RequestParam(required = false) String fields
+    ) {
+        return ResponseEntity.ok(productService.listProducts(category, active, cursor, size, fields));
     }
 }
@@ -0,0 +1,46 @@
+package com.oryzem.backend.modules.catalog.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Immutable product as stored by the repository, handed to readers as is instead of copied. A
+ * save replaces the view rather than changing it.
+ */
+public record ProductView(
+        String id,
+        String sku,
+        String name,
+        String category,
+        BigDecimal unitPrice,
+        boolean active,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public static ProductView of(Product product) {
+        return new ProductView(
+                product.getId(),
+                product.getSku(),
+                product.getName(),
+                product.getCategory(),
+                product.getUnitPrice(),
+                product.isActive(),
+                product.getCreatedAt(),
+                product.getUpdatedAt()
+        );
+    }
+
+    public Product toProduct() {
+        return Product.builder()
+                .id(id)
+                .sku(sku)
+                .name(name)
+                .category(category)
+                .unitPrice(unitPrice)
+                .active(active)
+                .createdAt(createdAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.oryzem.backend.modules.catalog.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Page of catalog products ordered from oldest to newest")
+public class ProductPageResponse {
+
+    @Schema(description = "Products in this page")
+    @Builder.Default
+    private List<ProductResponse> items = new ArrayList<>();
+
+    @Schema(description = "Opaque cursor for the next page, absent on the last page", example = "MTc3MjgzNTMzMDowOnByb2QtMQ")
+    private String nextCursor;
+}
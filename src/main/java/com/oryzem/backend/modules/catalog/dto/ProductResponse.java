@@ -1,5 +1,6 @@
 package com.oryzem.backend.modules.catalog.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,7 +14,8 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Schema(description = "Catalog product returned by the API")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Catalog product returned by the API; listings with fields= leave out the other fields")
 public class ProductResponse {
 
     @Schema(description = "Internal product identifier", example = "prod-001")
@@ -32,7 +34,7 @@ public class ProductResponse {
     private BigDecimal unitPrice;
 
     @Schema(description = "Whether the product is active for use", example = "true")
-    private boolean active;
+    private Boolean active;
 
     @Schema(description = "Creation timestamp", example = "2026-03-06T22:15:30Z")
     private Instant createdAt;
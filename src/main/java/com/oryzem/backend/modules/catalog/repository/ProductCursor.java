@@ -0,0 +1,21 @@
+package com.oryzem.backend.modules.catalog.repository;
+
+import com.oryzem.backend.modules.catalog.domain.ProductView;
+
+import java.time.Instant;
+
+/**
+ * Position of a product in the catalog listing order: creation time, then id.
+ */
+public record ProductCursor(Instant createdAt, String productId) implements Comparable<ProductCursor> {
+
+    public static ProductCursor of(ProductView product) {
+        return new ProductCursor(product.createdAt() == null ? Instant.EPOCH : product.createdAt(), product.id());
+    }
+
+    @Override
+    public int compareTo(ProductCursor other) {
+        int byCreatedAt = createdAt.compareTo(other.createdAt);
+        return byCreatedAt != 0 ? byCreatedAt : productId.compareTo(other.productId);
+    }
+}
@@ -1,81 +1,283 @@
 package com.oryzem.backend.modules.catalog.repository;
 
 import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
+import com.oryzem.backend.core.persistence.DurableStore;
+import com.oryzem.backend.core.persistence.RecordCodec;
+import com.oryzem.backend.core.persistence.WriteAheadLog;
 import com.oryzem.backend.core.tenant.TenantScope;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Products per tenant, stored as immutable {@link ProductView}s. The view lookups hand out the
+ * stored instance, so the order and marketplace paths read products without copying them; the
+ * {@link Product} lookups still return a fresh copy each time.
+ *
+ * <p>For listings each tenant also keeps its products sorted by creation time, in total and per
+ * category, updated by {@code save} together with the id map.
+ */
 @Repository
-public class ProductRepository {
+public class ProductRepository implements DurableStore {
 
-    private final ConcurrentMap<String, ConcurrentMap<String, Product>> productsByTenantAndId = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, ConcurrentMap<String, String>> productIdsByTenantAndSku = new ConcurrentHashMap<>();
+    private static final int RECORD_FORMAT = 1;
 
-    public synchronized Product save(Product product) {
+    private final ConcurrentMap<String, TenantCatalog> catalogsByTenant = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    public Product save(Product product) {
         String tenantScope = TenantScope.current();
-        ConcurrentMap<String, Product> productsById = tenantProducts(tenantScope);
-        ConcurrentMap<String, String> productIdBySku = tenantProductIdsBySku(tenantScope);
-        String skuKey = normalizeSku(product.getSku());
-        String existingProductId = productIdBySku.get(skuKey);
-        if (existingProductId != null && !existingProductId.equals(product.getId())) {
-            throw new IllegalStateException("Product SKU already exists: " + product.getSku());
+        ProductView stored = ProductView.of(product);
+        if (writeAheadLog == null) {
+            install(tenantScope, stored, () -> {
+            });
+            return stored.toProduct();
         }
-
-        Product copy = copy(product);
-        productsById.put(copy.getId(), copy);
-        productIdBySku.put(skuKey, copy.getId());
-        return copy(copy);
+        long journalSequence = writeAheadLog.journaled(() -> {
+            long[] sequence = new long[1];
+            install(tenantScope, stored, () -> sequence[0] = writeAheadLog.append(this, tenantScope, output -> writeProduct(output, stored)));
+            return sequence[0];
+        });
+        writeAheadLog.awaitDurable(journalSequence);
+        return stored.toProduct();
     }
 
     public Optional<Product> findById(String productId) {
-        Product product = tenantProducts(TenantScope.current()).get(productId);
-        return Optional.ofNullable(product).map(this::copy);
+        return findViewById(productId).map(ProductView::toProduct);
+    }
+
+    public Map<String, Product> findAllById(Collection<String> productIds) {
+        Map<String, Product> found = new HashMap<>();
+        findViewsById(productIds).forEach((productId, product) -> found.put(productId, product.toProduct()));
+        return found;
     }
 
     public Optional<Product> findBySku(String sku) {
-        String skuKey = normalizeSku(sku);
-        String productId = tenantProductIdsBySku(TenantScope.current()).get(skuKey);
-        if (productId == null) {
-            return Optional.empty();
-        }
-        return findById(productId);
+        return findViewBySku(sku).map(ProductView::toProduct);
     }
 
     public List<Product> findAll() {
         List<Product> products = new ArrayList<>();
-        for (Product product : tenantProducts(TenantScope.current()).values()) {
-            products.add(copy(product));
+        for (ProductView product : tenantCatalog(TenantScope.current()).productsById.values()) {
+            products.add(product.toProduct());
         }
         return products;
     }
 
-    private ConcurrentMap<String, Product> tenantProducts(String tenantScope) {
-        return productsByTenantAndId.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    /** Ids of the current tenant's products, read from the stored views without copying them. */
+    public Set<String> findAllIds() {
+        return new HashSet<>(tenantCatalog(TenantScope.current()).productsById.keySet());
+    }
+
+    public Optional<ProductView> findViewById(String productId) {
+        return Optional.ofNullable(tenantCatalog(TenantScope.current()).productsById.get(productId));
+    }
+
+    public Map<String, ProductView> findViewsById(Collection<String> productIds) {
+        ConcurrentMap<String, ProductView> productsById = tenantCatalog(TenantScope.current()).productsById;
+        Map<String, ProductView> found = new HashMap<>();
+        for (String productId : productIds) {
+            ProductView product = productsById.get(productId);
+            if (product != null) {
+                found.put(productId, product);
+            }
+        }
+        return found;
+    }
+
+    public Optional<ProductView> findViewBySku(String sku) {
+        TenantCatalog catalog = tenantCatalog(TenantScope.current());
+        String productId = catalog.productIdsBySku.get(normalizeSku(sku));
+        return productId == null ? Optional.empty() : Optional.ofNullable(catalog.productsById.get(productId));
+    }
+
+    /**
+     * Products after {@code after} in listing order, optionally only those of one category
+     * (case-insensitive) and active state. Walks the category's index when one is given.
+     */
+    public List<ProductView> findPage(String category, Boolean active, ProductCursor after, int limit) {
+        TenantCatalog catalog = tenantCatalog(TenantScope.current());
+        NavigableMap<ProductCursor, ProductView> index = category == null
+                ? catalog.sorted
+                : catalog.sortedByCategory.get(normalizeCategory(category));
+        if (index == null) {
+            return List.of();
+        }
+        if (after != null) {
+            index = index.tailMap(after, false);
+        }
+        List<ProductView> page = new ArrayList<>(Math.min(limit, 64));
+        for (ProductView product : index.values()) {
+            if (active == null || product.active() == active) {
+                page.add(product);
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public String storeName() {
+        return "products";
     }
 
-    private ConcurrentMap<String, String> tenantProductIdsBySku(String tenantScope) {
-        return productIdsByTenantAndSku.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    @Override
+    public void writeSnapshot(SnapshotSink sink) throws IOException {
+        for (Map.Entry<String, TenantCatalog> tenant : catalogsByTenant.entrySet()) {
+            for (ProductView product : tenant.getValue().productsById.values()) {
+                sink.write(tenant.getKey(), output -> writeProduct(output, product));
+            }
+        }
+    }
+
+    @Override
+    public void apply(String tenantScope, DataInput input) throws IOException {
+        replay(tenantScope, readProduct(input));
+    }
+
+    /**
+     * Stores the product and points its SKU at it. Writes of the same product id are serialized by
+     * the id map's compute; the SKU is claimed with putIfAbsent, so writes of different products
+     * only meet when they race for the same SKU, and reads never wait. A claim is rolled back if
+     * the write fails after it, and the product's previous SKU is released once it succeeded.
+     */
+    private void install(String tenantScope, ProductView stored, Runnable journal) {
+        TenantCatalog catalog = tenantCatalog(tenantScope);
+        ConcurrentMap<String, String> productIdBySku = catalog.productIdsBySku;
+        String skuKey = normalizeSku(stored.sku());
+        catalog.productsById.compute(stored.id(), (productId, previous) -> {
+            String owner = productIdBySku.putIfAbsent(skuKey, productId);
+            if (owner != null && !owner.equals(productId)) {
+                throw new IllegalStateException("Product SKU already exists: " + stored.sku());
+            }
+            try {
+                journal.run();
+            } catch (RuntimeException ex) {
+                if (owner == null) {
+                    productIdBySku.remove(skuKey, productId);
+                }
+                throw ex;
+            }
+            if (previous != null && !normalizeSku(previous.sku()).equals(skuKey)) {
+                productIdBySku.remove(normalizeSku(previous.sku()), productId);
+            }
+            catalog.index(previous, stored);
+            return stored;
+        });
     }
 
-    private String normalizeSku(String sku) {
+    /**
+     * Installs a replayed product, last writer wins. A snapshot taken while writes continue may
+     * hold a product under a SKU that another product claimed after renaming it away; the later
+     * records of the log settle which product keeps it, so replay never rejects a SKU.
+     */
+    private void replay(String tenantScope, ProductView stored) {
+        TenantCatalog catalog = tenantCatalog(tenantScope);
+        ConcurrentMap<String, String> productIdBySku = catalog.productIdsBySku;
+        String skuKey = normalizeSku(stored.sku());
+        catalog.productsById.compute(stored.id(), (productId, previous) -> {
+            productIdBySku.put(skuKey, productId);
+            if (previous != null && !normalizeSku(previous.sku()).equals(skuKey)) {
+                String previousSku = normalizeSku(previous.sku());
+                if (productIdBySku.remove(previousSku, productId)) {
+                    // The SKU may have been repointed here from a product that still carries it.
+                    catalog.productsById.values().stream()
+                            .filter(other -> !other.id().equals(productId) && normalizeSku(other.sku()).equals(previousSku))
+                            .findFirst()
+                            .ifPresent(other -> productIdBySku.putIfAbsent(previousSku, other.id()));
+                }
+            }
+            catalog.index(previous, stored);
+            return stored;
+        });
+    }
+
+    private static void writeProduct(DataOutput output, ProductView product) throws IOException {
+        output.writeByte(RECORD_FORMAT);
+        output.writeUTF(product.id());
+        RecordCodec.writeString(output, product.sku());
+        RecordCodec.writeString(output, product.name());
+        RecordCodec.writeString(output, product.category());
+        RecordCodec.writeDecimal(output, product.unitPrice());
+        output.writeBoolean(product.active());
+        RecordCodec.writeInstant(output, product.createdAt());
+        RecordCodec.writeInstant(output, product.updatedAt());
+    }
+
+    private static ProductView readProduct(DataInput input) throws IOException {
+        int format = input.readByte();
+        if (format != RECORD_FORMAT) {
+            throw new IOException("Unsupported product record format " + format);
+        }
+        return new ProductView(
+                input.readUTF(),
+                RecordCodec.readString(input),
+                RecordCodec.readString(input),
+                RecordCodec.readString(input),
+                RecordCodec.readDecimal(input),
+                input.readBoolean(),
+                RecordCodec.readInstant(input),
+                RecordCodec.readInstant(input)
+        );
+    }
+
+    private TenantCatalog tenantCatalog(String tenantScope) {
+        return catalogsByTenant.computeIfAbsent(tenantScope, ignored -> new TenantCatalog());
+    }
+
+    private static String normalizeSku(String sku) {
         return sku == null ? "" : sku.trim().toUpperCase();
     }
 
-    private Product copy(Product product) {
-        return Product.builder()
-                .id(product.getId())
-                .sku(product.getSku())
-                .name(product.getName())
-                .category(product.getCategory())
-                .unitPrice(product.getUnitPrice())
-                .active(product.isActive())
-                .createdAt(product.getCreatedAt())
-                .updatedAt(product.getUpdatedAt())
-                .build();
+    private static String normalizeCategory(String category) {
+        return category == null ? "" : category.trim().toUpperCase();
+    }
+
+    private static final class TenantCatalog {
+
+        private final ConcurrentMap<String, ProductView> productsById = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, String> productIdsBySku = new ConcurrentHashMap<>();
+        private final NavigableMap<ProductCursor, ProductView> sorted = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<String, NavigableMap<ProductCursor, ProductView>> sortedByCategory = new ConcurrentHashMap<>();
+
+        /** Moves the product to its new place in the sorted indexes; called within its id's compute. */
+        private void index(ProductView previous, ProductView stored) {
+            ProductCursor position = ProductCursor.of(stored);
+            String category = normalizeCategory(stored.category());
+            if (previous != null) {
+                ProductCursor previousPosition = ProductCursor.of(previous);
+                String previousCategory = normalizeCategory(previous.category());
+                if (!previousPosition.equals(position)) {
+                    sorted.remove(previousPosition);
+                }
+                if (!previousPosition.equals(position) || !previousCategory.equals(category)) {
+                    NavigableMap<ProductCursor, ProductView> previousIndex = sortedByCategory.get(previousCategory);
+                    if (previousIndex != null) {
+                        previousIndex.remove(previousPosition);
+                    }
+                }
+            }
+            sorted.put(position, stored);
+            sortedByCategory.computeIfAbsent(category, ignored -> new ConcurrentSkipListMap<>()).put(position, stored);
+        }
     }
 }
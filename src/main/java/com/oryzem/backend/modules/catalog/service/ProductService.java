@@ -1,23 +1,40 @@
 package com.oryzem.backend.modules.catalog.service;
 
+import com.oryzem.backend.core.ids.IdGenerator;
+import com.oryzem.backend.core.ids.TimeOrderedIdGenerator;
 import com.oryzem.backend.modules.catalog.domain.Product;
 import com.oryzem.backend.modules.catalog.domain.ProductNotFoundException;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
 import com.oryzem.backend.modules.catalog.dto.ProductCreateRequest;
+import com.oryzem.backend.modules.catalog.dto.ProductPageResponse;
 import com.oryzem.backend.modules.catalog.dto.ProductResponse;
+import com.oryzem.backend.modules.catalog.repository.ProductCursor;
 import com.oryzem.backend.modules.catalog.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Set<String> PROJECTABLE_FIELDS = new LinkedHashSet<>(List.of(
+            "id", "sku", "name", "category", "unitPrice", "active", "createdAt", "updatedAt"
+    ));
+
     private final ProductRepository productRepository;
+    @Autowired(required = false)
+    private IdGenerator idGenerator = TimeOrderedIdGenerator.shared();
 
     public ProductResponse createProduct(ProductCreateRequest request) {
         String normalizedSku = normalizeRequired(request.getSku(), "sku");
@@ -27,7 +44,7 @@ public class ProductService {
 
         Instant now = Instant.now();
         Product product = Product.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.nextId())
                 .sku(normalizedSku)
                 .name(normalizeRequired(request.getName(), "name"))
                 .category(normalizeRequired(request.getCategory(), "category"))
@@ -41,11 +58,27 @@ public class ProductService {
         return toResponse(saved);
     }
 
-    public List<ProductResponse> listProducts() {
-        return productRepository.findAll().stream()
-                .sorted(Comparator.comparing(Product::getCreatedAt))
-                .map(this::toResponse)
-                .toList();
+    /**
+     * Lists products from oldest to newest. {@code fields} is a comma-separated subset of the
+     * response fields to fill in; when absent, all of them are.
+     */
+    public ProductPageResponse listProducts(String category, Boolean active, String cursor, int size, String fields) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Set<String> projection = parseFields(fields);
+
+        List<ProductView> products = productRepository.findPage(trimToNull(category), active, decodeCursor(cursor), size);
+        String nextCursor = products.size() < size ? null : encodeCursor(products.get(products.size() - 1));
+
+        List<ProductResponse> items = new ArrayList<>(products.size());
+        for (ProductView product : products) {
+            items.add(toResponse(product, projection));
+        }
+        return ProductPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     public Product getProductById(String productId) {
@@ -66,6 +99,76 @@ public class ProductService {
                 .build();
     }
 
+    private ProductResponse toResponse(ProductView product, Set<String> fields) {
+        if (fields == null) {
+            return ProductResponse.builder()
+                    .id(product.id())
+                    .sku(product.sku())
+                    .name(product.name())
+                    .category(product.category())
+                    .unitPrice(product.unitPrice())
+                    .active(product.active())
+                    .createdAt(product.createdAt())
+                    .updatedAt(product.updatedAt())
+                    .build();
+        }
+        return ProductResponse.builder()
+                .id(fields.contains("id") ? product.id() : null)
+                .sku(fields.contains("sku") ? product.sku() : null)
+                .name(fields.contains("name") ? product.name() : null)
+                .category(fields.contains("category") ? product.category() : null)
+                .unitPrice(fields.contains("unitPrice") ? product.unitPrice() : null)
+                .active(fields.contains("active") ? product.active() : null)
+                .createdAt(fields.contains("createdAt") ? product.createdAt() : null)
+                .updatedAt(fields.contains("updatedAt") ? product.updatedAt() : null)
+                .build();
+    }
+
+    private static Set<String> parseFields(String fields) {
+        if (trimToNull(fields) == null) {
+            return null;
+        }
+        Set<String> projection = new HashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!PROJECTABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + "; expected some of " + PROJECTABLE_FIELDS);
+            }
+            projection.add(name);
+        }
+        return projection;
+    }
+
+    private String encodeCursor(ProductView product) {
+        ProductCursor position = ProductCursor.of(product);
+        String raw = position.createdAt().getEpochSecond() + ":" + position.createdAt().getNano() + ":" + position.productId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ProductCursor decodeCursor(String cursor) {
+        String normalized = trimToNull(cursor);
+        if (normalized == null) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(normalized), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new ProductCursor(createdAt, parts[2]);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
     private String normalizeRequired(String value, String fieldName) {
         if (value == null || value.isBlank()) {
             throw new IllegalArgumentException(fieldName + " is required");
@@ -0,0 +1,26 @@
+package com.oryzem.backend.modules.integrations.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.integrations.status-outbox")
+public record MarketplaceStatusOutboxProperties(
+        long dispatchIntervalMillis,
+        int batchSize,
+        int maxAttempts,
+        long initialBackoffMillis,
+        long maxBackoffMillis
+) {
+    private static final long DEFAULT_DISPATCH_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_ATTEMPTS = 8;
+    private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 2000;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = 300000;
+
+    public MarketplaceStatusOutboxProperties {
+        dispatchIntervalMillis = dispatchIntervalMillis > 0 ? dispatchIntervalMillis : DEFAULT_DISPATCH_INTERVAL_MILLIS;
+        batchSize = batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+        maxAttempts = maxAttempts > 0 ? maxAttempts : DEFAULT_MAX_ATTEMPTS;
+        initialBackoffMillis = initialBackoffMillis > 0 ? initialBackoffMillis : DEFAULT_INITIAL_BACKOFF_MILLIS;
+        maxBackoffMillis = maxBackoffMillis >= initialBackoffMillis ? maxBackoffMillis : Math.max(initialBackoffMillis, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+}
@@ -1,6 +1,6 @@
 package com.oryzem.backend.modules.integrations.service;
 
-import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
 import com.oryzem.backend.modules.catalog.repository.ProductRepository;
 import com.oryzem.backend.modules.integrations.domain.MarketplaceOrderItemPayload;
 import com.oryzem.backend.modules.integrations.domain.MarketplaceOrderPayload;
@@ -43,29 +43,29 @@ public class MarketplaceOrderMapper {
     }
 
     private OrderItemRequest toItemRequest(MarketplaceOrderItemPayload itemPayload) {
-        Product product = resolveProduct(itemPayload);
-        BigDecimal unitPrice = itemPayload.getUnitPrice() == null ? product.getUnitPrice() : itemPayload.getUnitPrice();
+        ProductView product = resolveProduct(itemPayload);
+        BigDecimal unitPrice = itemPayload.getUnitPrice() == null ? product.unitPrice() : itemPayload.getUnitPrice();
 
         return OrderItemRequest.builder()
-                .productId(product.getId())
+                .productId(product.id())
                 .nameSnapshot(itemPayload.getName() == null || itemPayload.getName().isBlank()
-                        ? product.getName()
+                        ? product.name()
                         : itemPayload.getName().trim())
                 .quantity(itemPayload.getQuantity())
                 .unitPrice(unitPrice)
                 .build();
     }
 
-    private Product resolveProduct(MarketplaceOrderItemPayload itemPayload) {
+    private ProductView resolveProduct(MarketplaceOrderItemPayload itemPayload) {
         if (itemPayload.getProductId() != null && !itemPayload.getProductId().isBlank()) {
-            return productRepository.findById(itemPayload.getProductId().trim())
+            return productRepository.findViewById(itemPayload.getProductId().trim())
                     .orElseThrow(() -> new IllegalArgumentException(
                             "Unknown marketplace productId: " + itemPayload.getProductId()
                     ));
         }
 
         if (itemPayload.getSku() != null && !itemPayload.getSku().isBlank()) {
-            return productRepository.findBySku(itemPayload.getSku().trim())
+            return productRepository.findViewBySku(itemPayload.getSku().trim())
                     .orElseThrow(() -> new IllegalArgumentException(
                             "Unknown marketplace sku: " + itemPayload.getSku()
                     ));
@@ -0,0 +1,130 @@
+package com.oryzem.backend.modules.integrations.service;
+
+import com.oryzem.backend.modules.integrations.config.MarketplaceStatusOutboxProperties;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pending marketplace status updates, delivered by a background dispatcher so order transitions
+ * never wait on a marketplace API. Holds at most one update per marketplace order: a newer status
+ * replaces one that has not been delivered yet.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MarketplaceStatusOutbox {
+
+    private final MarketplaceStatusSyncService marketplaceStatusSyncService;
+    private final MarketplaceStatusOutboxProperties properties;
+    private final ConcurrentMap<String, PendingStatusUpdate> pendingByOrderKey = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public void enqueue(OrderSource source, String merchantId, String externalOrderId, OrderStatus status) {
+        if (source == null
+                || source == OrderSource.INTERNAL
+                || merchantId == null
+                || merchantId.isBlank()
+                || externalOrderId == null
+                || externalOrderId.isBlank()
+                || status == null) {
+            return;
+        }
+
+        String orderKey = source.name() + "::" + merchantId.trim() + "::" + externalOrderId.trim();
+        PendingStatusUpdate update = new PendingStatusUpdate(
+                sequence.incrementAndGet(),
+                source,
+                merchantId.trim(),
+                externalOrderId.trim(),
+                status,
+                0,
+                Instant.now()
+        );
+        PendingStatusUpdate superseded = pendingByOrderKey.put(orderKey, update);
+        if (superseded != null) {
+            log.debug("Coalesced marketplace status {} -> {} for order {}", superseded.status(), status, orderKey);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.integrations.status-outbox.dispatch-interval-millis:1000}")
+    public void dispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Instant now = Instant.now();
+            List<Map.Entry<String, PendingStatusUpdate>> due = new ArrayList<>();
+            for (Map.Entry<String, PendingStatusUpdate> entry : pendingByOrderKey.entrySet()) {
+                if (!entry.getValue().nextAttemptAt().isAfter(now)) {
+                    due.add(entry);
+                }
+            }
+            due.sort(Comparator.comparingLong(entry -> entry.getValue().sequence()));
+
+            int limit = Math.min(due.size(), properties.batchSize());
+            for (int i = 0; i < limit; i++) {
+                deliver(due.get(i).getKey(), due.get(i).getValue());
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public int pendingCount() {
+        return pendingByOrderKey.size();
+    }
+
+    private void deliver(String orderKey, PendingStatusUpdate update) {
+        try {
+            marketplaceStatusSyncService.publish(update.source(), update.merchantId(), update.externalOrderId(), update.status());
+            // A newer status enqueued during delivery stays pending.
+            pendingByOrderKey.remove(orderKey, update);
+        } catch (Exception ex) {
+            int attempts = update.attempts() + 1;
+            if (attempts >= properties.maxAttempts()) {
+                pendingByOrderKey.remove(orderKey, update);
+                log.error("Giving up marketplace status {} for order {} after {} attempts: {}",
+                        update.status(), orderKey, attempts, ex.getMessage());
+                return;
+            }
+
+            long backoffMillis = Math.min(
+                    properties.maxBackoffMillis(),
+                    properties.initialBackoffMillis() << Math.min(attempts - 1, 20)
+            );
+            pendingByOrderKey.replace(orderKey, update, update.retryAt(attempts, Instant.now().plusMillis(backoffMillis)));
+            log.warn("Failed to publish marketplace status {} for order {} (attempt {}/{}), retrying in {} ms: {}",
+                    update.status(), orderKey, attempts, properties.maxAttempts(), backoffMillis, ex.getMessage());
+        }
+    }
+
+    private record PendingStatusUpdate(
+            long sequence,
+            OrderSource source,
+            String merchantId,
+            String externalOrderId,
+            OrderStatus status,
+            int attempts,
+            Instant nextAttemptAt
+    ) {
+        PendingStatusUpdate retryAt(int nextAttempts, Instant retryAt) {
+            return new PendingStatusUpdate(sequence, source, merchantId, externalOrderId, status, nextAttempts, retryAt);
+        }
+    }
+}
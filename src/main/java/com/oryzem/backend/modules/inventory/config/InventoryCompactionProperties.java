@@ -0,0 +1,20 @@
+package com.oryzem.backend.modules.inventory.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.inventory.compaction")
+public record InventoryCompactionProperties(
+        boolean enabled,
+        Duration minAge,
+        long sweepIntervalSeconds
+) {
+    private static final Duration DEFAULT_MIN_AGE = Duration.ofDays(90);
+    private static final long DEFAULT_SWEEP_INTERVAL_SECONDS = 3600;
+
+    public InventoryCompactionProperties {
+        minAge = minAge == null || minAge.isNegative() ? DEFAULT_MIN_AGE : minAge;
+        sweepIntervalSeconds = sweepIntervalSeconds > 0 ? sweepIntervalSeconds : DEFAULT_SWEEP_INTERVAL_SECONDS;
+    }
+}
@@ -0,0 +1,23 @@
+package com.oryzem.backend.modules.inventory.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.inventory.holds")
+public record InventoryHoldProperties(
+        boolean enabled,
+        Duration ttl,
+        long tickMillis,
+        int wheelSize
+) {
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    public InventoryHoldProperties {
+        ttl = ttl == null || ttl.isNegative() || ttl.isZero() ? DEFAULT_TTL : ttl;
+        tickMillis = tickMillis > 0 ? tickMillis : DEFAULT_TICK_MILLIS;
+        wheelSize = wheelSize > 0 ? wheelSize : DEFAULT_WHEEL_SIZE;
+    }
+}
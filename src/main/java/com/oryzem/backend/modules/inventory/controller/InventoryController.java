@@ -1,8 +1,12 @@
 package com.oryzem.backend.modules.inventory.controller;
 
+import com.oryzem.backend.modules.inventory.dto.InventoryImportResponse;
 import com.oryzem.backend.modules.inventory.dto.InventoryItemResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementPageResponse;
 import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
 import com.oryzem.backend.modules.inventory.dto.InventoryMovementResponse;
+import com.oryzem.backend.modules.inventory.dto.InventorySnapshotResponse;
+import com.oryzem.backend.modules.inventory.service.InventoryImportService;
 import com.oryzem.backend.modules.inventory.service.InventoryService;
 import com.oryzem.backend.shared.dto.ApiErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -15,15 +19,26 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
 @RestController
 @RequestMapping("/api/inventory")
 @RequiredArgsConstructor
@@ -31,7 +46,11 @@ import org.springframework.web.bind.annotation.RestController;
 @SecurityRequirement(name = "bearerAuth")
 public class InventoryController {
 
+    private static final String CSV_MEDIA_TYPE = "text/csv";
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     private final InventoryService inventoryService;
+    private final InventoryImportService inventoryImportService;
 
     @PostMapping("/movements")
     @Operation(
@@ -72,6 +91,95 @@ public class InventoryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping(value = "/movements/import", consumes = {CSV_MEDIA_TYPE, NDJSON_MEDIA_TYPE})
+    @Operation(
+            summary = "Import inventory movements in bulk",
+            description = "Streams a CSV (productId,type,quantity,reason[,referenceOrderId[,minimumLevel]]) or NDJSON body "
+                    + "and applies its movements in batches. Invalid lines are skipped and reported by line number."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import processed; see the per-line error report"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "415",
+                    description = "Body is neither CSV nor NDJSON",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<InventoryImportResponse> importMovements(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws IOException {
+        InventoryImportService.Format format = contentType.toLowerCase(Locale.ROOT).startsWith(CSV_MEDIA_TYPE)
+                ? InventoryImportService.Format.CSV
+                : InventoryImportService.Format.NDJSON;
+        return ResponseEntity.ok(inventoryImportService.importMovements(body, format));
+    }
+
+    @GetMapping
+    @Operation(
+            summary = "Get the stock of all products",
+            description = "Returns every product's inventory position as of one consistent version, sent as the ETag. "
+                    + "Send it back in If-None-Match to get 304 Not Modified while nothing has changed."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Inventory snapshot returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Inventory unchanged since the version in If-None-Match"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<InventorySnapshotResponse> getInventory(
+            @Parameter(description = "ETag of a previously returned snapshot")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        // Checked against the version alone, so an unchanged inventory is neither copied nor serialized.
+        String currentETag = quote(inventoryService.inventoryVersion());
+        if (matches(ifNoneMatch, currentETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+        }
+        InventorySnapshotResponse snapshot = inventoryService.getInventorySnapshot();
+        return ResponseEntity.ok().eTag(quote(snapshot.getVersion())).body(snapshot);
+    }
+
+    @GetMapping("/low-stock")
+    @Operation(
+            summary = "List products below their minimum level",
+            description = "Returns the inventory position of every product whose stock is below its configured minimum level."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Low-stock products returned successfully"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<List<InventoryItemResponse>> listLowStock() {
+        return ResponseEntity.ok(inventoryService.listLowStock());
+    }
+
     @GetMapping("/{productId}")
     @Operation(
             summary = "Get inventory position for a product",
@@ -100,4 +208,67 @@ public class InventoryController {
             @PathVariable String productId) {
         return ResponseEntity.ok(inventoryService.getInventoryByProductId(productId));
     }
+
+    @GetMapping("/{productId}/movements")
+    @Operation(
+            summary = "List inventory movements for a product",
+            description = "Returns the movements of a product from newest to oldest with cursor pagination, optionally limited to a date range."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Movements returned successfully"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unknown product, invalid cursor, date range or page size",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<InventoryMovementPageResponse> listMovements(
+            @Parameter(description = "Product identifier", example = "SKU-001")
+            @PathVariable String productId,
+            @Parameter(description = "Start date (inclusive) in ISO format", example = "2026-03-01")
+            @RequestParam(required = false) LocalDate from,
+            @Parameter(description = "End date (inclusive) in ISO format", example = "2026-03-31")
+            @RequestParam(required = false) LocalDate to,
+            @Parameter(description = "Cursor returned by the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-200)", example = "20")
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        Instant fromInstant = from == null ? null : from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant toInstant = to == null ? null : to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        if (fromInstant != null && toInstant != null && !fromInstant.isBefore(toInstant)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        return ResponseEntity.ok(inventoryService.listMovements(productId, fromInstant, toInstant, cursor, size));
+    }
+
+    private static String quote(String version) {
+        return "\"" + version + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
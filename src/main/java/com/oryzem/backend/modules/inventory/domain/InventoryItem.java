@@ -14,7 +14,6 @@ import java.time.Instant;
 public class InventoryItem {
 
     private String productId;
-    private int quantityAvailable;
     private int minimumLevel;
     private Instant updatedAt;
 }
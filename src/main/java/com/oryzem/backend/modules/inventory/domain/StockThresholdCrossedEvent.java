@@ -0,0 +1,20 @@
+package com.oryzem.backend.modules.inventory.domain;
+
+import com.oryzem.backend.core.events.DomainEvent;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A product's stock went below its minimum level ({@code belowMinimum}) or back to it or above.
+ */
+public record StockThresholdCrossedEvent(
+        UUID eventId,
+        Instant occurredAt,
+        String tenantScope,
+        String productId,
+        int quantity,
+        int minimumLevel,
+        boolean belowMinimum
+) implements DomainEvent {
+}
@@ -0,0 +1,24 @@
+package com.oryzem.backend.modules.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Line of a bulk movement import that was not applied")
+public class InventoryImportError {
+
+    @Schema(description = "One-based line number in the uploaded file", example = "17")
+    private long line;
+
+    @Schema(description = "Product identifier of the line, when it could be read", example = "SKU-404")
+    private String productId;
+
+    @Schema(description = "Reason the line was rejected", example = "Unknown productId: SKU-404")
+    private String error;
+}
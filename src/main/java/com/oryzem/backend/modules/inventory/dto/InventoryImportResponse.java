@@ -0,0 +1,28 @@
+package com.oryzem.backend.modules.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Outcome of a bulk movement import")
+public class InventoryImportResponse {
+
+    @Schema(description = "Number of movements applied", example = "1998")
+    private long appliedCount;
+
+    @Schema(description = "Number of lines rejected", example = "2")
+    private long failedCount;
+
+    @Schema(description = "Rejected lines ordered by line number; at most 1000 are listed")
+    @Builder.Default
+    private List<InventoryImportError> errors = new ArrayList<>();
+}
@@ -18,9 +18,12 @@ public class InventoryItemResponse {
     @Schema(description = "Product identifier", example = "SKU-001")
     private String productId;
 
-    @Schema(description = "Available stock quantity", example = "42")
+    @Schema(description = "Stock quantity available to new orders, net of held stock", example = "42")
     private int quantityAvailable;
 
+    @Schema(description = "Stock held for unconfirmed orders", example = "3")
+    private int quantityHeld;
+
     @Schema(description = "Configured minimum stock level", example = "10")
     private int minimumLevel;
 
@@ -0,0 +1,25 @@
+package com.oryzem.backend.modules.inventory.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Stock of every product as of one inventory version")
+public class InventorySnapshotResponse {
+
+    @Schema(description = "Inventory version the items were read at; also sent as the ETag", example = "mf3k2a1c-42")
+    private String version;
+
+    @Schema(description = "Stock positions ordered by product id")
+    @Builder.Default
+    private List<InventoryItemResponse> items = new ArrayList<>();
+}
@@ -1,29 +1,150 @@
 package com.oryzem.backend.modules.inventory.repository;
 
+import com.oryzem.backend.core.persistence.DurableStore;
+import com.oryzem.backend.core.persistence.RecordCodec;
+import com.oryzem.backend.core.persistence.WriteAheadLog;
 import com.oryzem.backend.core.tenant.TenantScope;
 import com.oryzem.backend.modules.inventory.domain.InventoryItem;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 @Repository
-public class InventoryItemRepository {
+public class InventoryItemRepository implements DurableStore {
+
+    // Formats 1 and 2 also carried the stock quantity, now derived from the movement ledger.
+    private static final int LEGACY_RECORD_FORMAT = 1;
+    private static final int LEGACY_BATCH_RECORD_FORMAT = 2;
+    private static final int RECORD_FORMAT = 3;
+    private static final int BATCH_RECORD_FORMAT = 4;
 
     private final ConcurrentMap<String, ConcurrentMap<String, InventoryItem>> itemsByTenantAndProductId = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
 
     public InventoryItem save(InventoryItem item) {
+        String tenantScope = TenantScope.current();
         InventoryItem copy = copy(item);
-        tenantItems(TenantScope.current()).put(copy.getProductId(), copy);
+        tenantItems(tenantScope).put(copy.getProductId(), copy);
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(this, tenantScope, output -> writeItem(output, copy)));
+        }
         return copy(copy);
     }
 
+    /**
+     * Saves several items as one journal record, so after a crash either all of them or none of
+     * them are restored.
+     */
+    public void saveAll(Collection<InventoryItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        String tenantScope = TenantScope.current();
+        List<InventoryItem> copies = items.stream().map(this::copy).toList();
+        ConcurrentMap<String, InventoryItem> itemsByProductId = tenantItems(tenantScope);
+        for (InventoryItem copy : copies) {
+            itemsByProductId.put(copy.getProductId(), copy);
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(this, tenantScope, output -> writeBatch(output, copies)));
+        }
+    }
+
     public Optional<InventoryItem> findByProductId(String productId) {
         InventoryItem found = tenantItems(TenantScope.current()).get(productId);
         return Optional.ofNullable(found).map(this::copy);
     }
 
+    public List<InventoryItem> findAll() {
+        return tenantItems(TenantScope.current()).values().stream().map(this::copy).toList();
+    }
+
+    public Map<String, InventoryItem> findAllByProductId(Collection<String> productIds) {
+        ConcurrentMap<String, InventoryItem> itemsByProductId = tenantItems(TenantScope.current());
+        Map<String, InventoryItem> found = new HashMap<>();
+        for (String productId : productIds) {
+            InventoryItem item = itemsByProductId.get(productId);
+            if (item != null) {
+                found.put(productId, copy(item));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public String storeName() {
+        return "inventory-items";
+    }
+
+    @Override
+    public void writeSnapshot(SnapshotSink sink) throws IOException {
+        for (Map.Entry<String, ConcurrentMap<String, InventoryItem>> tenant : itemsByTenantAndProductId.entrySet()) {
+            for (InventoryItem item : tenant.getValue().values()) {
+                sink.write(tenant.getKey(), output -> writeItem(output, item));
+            }
+        }
+    }
+
+    @Override
+    public void apply(String tenantScope, DataInput input) throws IOException {
+        ConcurrentMap<String, InventoryItem> itemsByProductId = tenantItems(tenantScope);
+        int format = input.readByte();
+        if (format == RECORD_FORMAT || format == LEGACY_RECORD_FORMAT) {
+            InventoryItem item = readItemFields(input, format == LEGACY_RECORD_FORMAT);
+            itemsByProductId.put(item.getProductId(), item);
+        } else if (format == BATCH_RECORD_FORMAT || format == LEGACY_BATCH_RECORD_FORMAT) {
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                InventoryItem item = readItemFields(input, format == LEGACY_BATCH_RECORD_FORMAT);
+                itemsByProductId.put(item.getProductId(), item);
+            }
+        } else {
+            throw new IOException("Unsupported inventory item record format " + format);
+        }
+    }
+
+    private static void writeItem(DataOutput output, InventoryItem item) throws IOException {
+        output.writeByte(RECORD_FORMAT);
+        writeItemFields(output, item);
+    }
+
+    private static void writeBatch(DataOutput output, List<InventoryItem> items) throws IOException {
+        output.writeByte(BATCH_RECORD_FORMAT);
+        output.writeInt(items.size());
+        for (InventoryItem item : items) {
+            writeItemFields(output, item);
+        }
+    }
+
+    private static void writeItemFields(DataOutput output, InventoryItem item) throws IOException {
+        output.writeUTF(item.getProductId());
+        output.writeInt(item.getMinimumLevel());
+        RecordCodec.writeInstant(output, item.getUpdatedAt());
+    }
+
+    private static InventoryItem readItemFields(DataInput input, boolean legacy) throws IOException {
+        String productId = input.readUTF();
+        if (legacy) {
+            input.readInt();
+        }
+        return InventoryItem.builder()
+                .productId(productId)
+                .minimumLevel(input.readInt())
+                .updatedAt(RecordCodec.readInstant(input))
+                .build();
+    }
+
     private ConcurrentMap<String, InventoryItem> tenantItems(String tenantScope) {
         return itemsByTenantAndProductId.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
     }
@@ -31,7 +152,6 @@ public class InventoryItemRepository {
     private InventoryItem copy(InventoryItem item) {
         return InventoryItem.builder()
                 .productId(item.getProductId())
-                .quantityAvailable(item.getQuantityAvailable())
                 .minimumLevel(item.getMinimumLevel())
                 .updatedAt(item.getUpdatedAt())
                 .build();
@@ -1,37 +1,285 @@
 package com.oryzem.backend.modules.inventory.repository;
 
+import com.oryzem.backend.core.persistence.DurableStore;
+import com.oryzem.backend.core.persistence.RecordCodec;
+import com.oryzem.backend.core.persistence.WriteAheadLog;
 import com.oryzem.backend.core.tenant.TenantScope;
 import com.oryzem.backend.modules.inventory.domain.InventoryMovement;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+/**
+ * Append-only movement ledger and the source of truth for stock quantities. Besides the id map,
+ * each tenant keeps movements indexed by referenceOrderId (in append order) and by productId
+ * (ordered by creation time), so neither lookup scans the tenant.
+ *
+ * <p>Each product's quantity is its last snapshot plus the movements after it, and is kept up to
+ * date on every append so reads are O(1). Compaction folds movements older than a cutoff into a
+ * new snapshot and drops them; replaying the journal applies the snapshot records the same way,
+ * so a rebuild only replays the movements after each product's last snapshot.
+ */
 @Repository
-public class InventoryMovementRepository {
+public class InventoryMovementRepository implements DurableStore {
 
-    private final ConcurrentMap<String, ConcurrentMap<String, InventoryMovement>> movementsByTenantAndId = new ConcurrentHashMap<>();
+    private static final int RECORD_FORMAT = 1;
+    private static final int BATCH_RECORD_FORMAT = 2;
+    private static final int SNAPSHOT_RECORD_FORMAT = 3;
+
+    private final ConcurrentMap<String, TenantLedger> ledgersByTenant = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
 
     public InventoryMovement save(InventoryMovement movement) {
+        String tenantScope = TenantScope.current();
         InventoryMovement copy = copy(movement);
-        tenantMovements(TenantScope.current()).put(copy.getId(), copy);
+        tenantLedger(tenantScope).append(copy);
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(this, tenantScope, output -> writeMovement(output, copy)));
+        }
         return copy(copy);
     }
 
+    /**
+     * Saves several movements as one journal record.
+     */
+    public void saveAll(List<InventoryMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        String tenantScope = TenantScope.current();
+        List<InventoryMovement> copies = movements.stream().map(this::copy).toList();
+        TenantLedger ledger = tenantLedger(tenantScope);
+        for (InventoryMovement copy : copies) {
+            ledger.append(copy);
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(writeAheadLog.append(this, tenantScope, output -> writeBatch(output, copies)));
+        }
+    }
+
+    /**
+     * Removes movements of a batch whose stock change was rolled back.
+     */
+    public void deleteAll(List<InventoryMovement> movements) {
+        TenantLedger ledger = tenantLedger(TenantScope.current());
+        for (InventoryMovement movement : movements) {
+            ledger.remove(movement.getId());
+        }
+    }
+
+    public StockBalance findBalance(String productId) {
+        ProductLedger product = tenantLedger(TenantScope.current()).byProduct.get(productId);
+        return product == null ? StockBalance.EMPTY : product.balance;
+    }
+
+    /** Ids of the current tenant's products that have a balance. */
+    public Set<String> findProductIds() {
+        return Set.copyOf(tenantLedger(TenantScope.current()).byProduct.keySet());
+    }
+
+    public Map<String, StockBalance> findBalances(Collection<String> productIds) {
+        TenantLedger ledger = tenantLedger(TenantScope.current());
+        Map<String, StockBalance> balances = new HashMap<>();
+        for (String productId : productIds) {
+            ProductLedger product = ledger.byProduct.get(productId);
+            balances.put(productId, product == null ? StockBalance.EMPTY : product.balance);
+        }
+        return balances;
+    }
+
+    /**
+     * Folds every movement created before {@code cutoff} into its product's snapshot and drops it
+     * from the ledger. Quantities are unchanged; the folded movements no longer show up in
+     * listings. Returns the number of movements folded.
+     */
+    public int compact(Instant cutoff) {
+        MovementCursor upper = MovementCursor.lowerBound(cutoff);
+        int folded = 0;
+        for (Map.Entry<String, TenantLedger> tenant : ledgersByTenant.entrySet()) {
+            TenantLedger ledger = tenant.getValue();
+            List<ProductSnapshot> snapshots = new ArrayList<>();
+            for (ProductLedger product : ledger.byProduct.values()) {
+                ProductSnapshot snapshot = product.snapshotBefore(upper);
+                if (snapshot != null) {
+                    folded += ledger.install(product, snapshot);
+                    snapshots.add(snapshot);
+                }
+            }
+            if (writeAheadLog != null && !snapshots.isEmpty()) {
+                writeAheadLog.awaitDurable(writeAheadLog.append(this, tenant.getKey(), output -> writeSnapshots(output, snapshots)));
+            }
+        }
+        return folded;
+    }
+
     public List<InventoryMovement> findByReferenceOrderId(String referenceOrderId) {
-        List<InventoryMovement> movements = new ArrayList<>();
-        for (InventoryMovement movement : tenantMovements(TenantScope.current()).values()) {
-            if (referenceOrderId != null && referenceOrderId.equals(movement.getReferenceOrderId())) {
-                movements.add(copy(movement));
+        if (referenceOrderId == null) {
+            return new ArrayList<>();
+        }
+        Queue<InventoryMovement> movements = tenantLedger(TenantScope.current()).byOrder.get(referenceOrderId);
+        List<InventoryMovement> copies = new ArrayList<>();
+        if (movements != null) {
+            for (InventoryMovement movement : movements) {
+                copies.add(copy(movement));
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Returns up to {@code limit} movements of the product created in {@code [from, to)}, newest
+     * first, strictly older than {@code before} when a cursor is given.
+     */
+    public List<InventoryMovement> findByProductId(String productId, Instant from, Instant to, MovementCursor before, int limit) {
+        ProductLedger product = tenantLedger(TenantScope.current()).byProduct.get(productId);
+        List<InventoryMovement> movements = new ArrayList<>(Math.min(Math.max(limit, 0), 256));
+        if (product == null || limit <= 0) {
+            return movements;
+        }
+        NavigableMap<MovementCursor, InventoryMovement> index = product.movements;
+
+        MovementCursor upper = to == null ? null : MovementCursor.lowerBound(to);
+        if (before != null && (upper == null || before.compareTo(upper) < 0)) {
+            upper = before;
+        }
+        MovementCursor lower = from == null ? null : MovementCursor.lowerBound(from);
+        if (lower != null && upper != null && lower.compareTo(upper) >= 0) {
+            return movements;
+        }
+
+        NavigableMap<MovementCursor, InventoryMovement> view = index;
+        if (lower != null && upper != null) {
+            view = index.subMap(lower, true, upper, false);
+        } else if (lower != null) {
+            view = index.tailMap(lower, true);
+        } else if (upper != null) {
+            view = index.headMap(upper, false);
+        }
+        for (InventoryMovement movement : view.descendingMap().values()) {
+            movements.add(copy(movement));
+            if (movements.size() == limit) {
+                break;
             }
         }
         return movements;
     }
 
-    private ConcurrentMap<String, InventoryMovement> tenantMovements(String tenantScope) {
-        return movementsByTenantAndId.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    @Override
+    public String storeName() {
+        return "inventory-movements";
+    }
+
+    @Override
+    public void writeSnapshot(SnapshotSink sink) throws IOException {
+        for (Map.Entry<String, TenantLedger> tenant : ledgersByTenant.entrySet()) {
+            for (ProductLedger product : tenant.getValue().byProduct.values()) {
+                ProductSnapshot snapshot = product.snapshot;
+                if (snapshot != null) {
+                    sink.write(tenant.getKey(), output -> writeSnapshots(output, List.of(snapshot)));
+                }
+            }
+            for (InventoryMovement movement : tenant.getValue().byId.values()) {
+                sink.write(tenant.getKey(), output -> writeMovement(output, movement));
+            }
+        }
+    }
+
+    @Override
+    public void apply(String tenantScope, DataInput input) throws IOException {
+        TenantLedger ledger = tenantLedger(tenantScope);
+        int format = input.readByte();
+        if (format == RECORD_FORMAT) {
+            ledger.append(readMovementFields(input));
+        } else if (format == BATCH_RECORD_FORMAT) {
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                ledger.append(readMovementFields(input));
+            }
+        } else if (format == SNAPSHOT_RECORD_FORMAT) {
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                ProductSnapshot snapshot = readSnapshotFields(input);
+                ledger.install(ledger.product(snapshot.productId()), snapshot);
+            }
+        } else {
+            throw new IOException("Unsupported inventory movement record format " + format);
+        }
+    }
+
+    private static void writeMovement(DataOutput output, InventoryMovement movement) throws IOException {
+        output.writeByte(RECORD_FORMAT);
+        writeMovementFields(output, movement);
+    }
+
+    private static void writeBatch(DataOutput output, List<InventoryMovement> movements) throws IOException {
+        output.writeByte(BATCH_RECORD_FORMAT);
+        output.writeInt(movements.size());
+        for (InventoryMovement movement : movements) {
+            writeMovementFields(output, movement);
+        }
+    }
+
+    private static void writeSnapshots(DataOutput output, List<ProductSnapshot> snapshots) throws IOException {
+        output.writeByte(SNAPSHOT_RECORD_FORMAT);
+        output.writeInt(snapshots.size());
+        for (ProductSnapshot snapshot : snapshots) {
+            output.writeUTF(snapshot.productId());
+            output.writeInt(snapshot.quantity());
+            RecordCodec.writeInstant(output, snapshot.through().createdAt());
+            output.writeUTF(snapshot.through().movementId());
+            RecordCodec.writeInstant(output, snapshot.updatedAt());
+        }
+    }
+
+    private static ProductSnapshot readSnapshotFields(DataInput input) throws IOException {
+        String productId = input.readUTF();
+        int quantity = input.readInt();
+        MovementCursor through = new MovementCursor(RecordCodec.readInstant(input), input.readUTF());
+        return new ProductSnapshot(productId, quantity, through, RecordCodec.readInstant(input));
+    }
+
+    private static void writeMovementFields(DataOutput output, InventoryMovement movement) throws IOException {
+        output.writeUTF(movement.getId());
+        RecordCodec.writeString(output, movement.getProductId());
+        RecordCodec.writeEnum(output, movement.getType());
+        output.writeInt(movement.getQuantity());
+        RecordCodec.writeString(output, movement.getReason());
+        RecordCodec.writeString(output, movement.getReferenceOrderId());
+        RecordCodec.writeInstant(output, movement.getCreatedAt());
+    }
+
+    private static InventoryMovement readMovementFields(DataInput input) throws IOException {
+        return InventoryMovement.builder()
+                .id(input.readUTF())
+                .productId(RecordCodec.readString(input))
+                .type(RecordCodec.readEnum(input, InventoryMovementType.class))
+                .quantity(input.readInt())
+                .reason(RecordCodec.readString(input))
+                .referenceOrderId(RecordCodec.readString(input))
+                .createdAt(RecordCodec.readInstant(input))
+                .build();
+    }
+
+    private TenantLedger tenantLedger(String tenantScope) {
+        return ledgersByTenant.computeIfAbsent(tenantScope, ignored -> new TenantLedger());
     }
 
     private InventoryMovement copy(InventoryMovement movement) {
@@ -45,4 +293,150 @@ public class InventoryMovementRepository {
                 .createdAt(movement.getCreatedAt())
                 .build();
     }
+
+    private static int signedQuantity(InventoryMovement movement) {
+        return movement.getType() == InventoryMovementType.OUT ? -movement.getQuantity() : movement.getQuantity();
+    }
+
+    /** Quantity of a product including every movement up to and including {@code through}. */
+    private record ProductSnapshot(String productId, int quantity, MovementCursor through, Instant updatedAt) {
+    }
+
+    private static final class TenantLedger {
+
+        private final ConcurrentMap<String, InventoryMovement> byId = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Queue<InventoryMovement>> byOrder = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, ProductLedger> byProduct = new ConcurrentHashMap<>();
+
+        ProductLedger product(String productId) {
+            return byProduct.computeIfAbsent(productId, ProductLedger::new);
+        }
+
+        void append(InventoryMovement movement) {
+            boolean indexable = movement.getProductId() != null && movement.getCreatedAt() != null;
+            // Replaying a record that is both in the snapshot and the log, or that a product
+            // snapshot already folded, must not count it twice.
+            if (indexable ? !product(movement.getProductId()).append(movement) : byId.containsKey(movement.getId())) {
+                return;
+            }
+            byId.put(movement.getId(), movement);
+            if (movement.getReferenceOrderId() != null) {
+                byOrder.computeIfAbsent(movement.getReferenceOrderId(), ignored -> new ConcurrentLinkedQueue<>()).add(movement);
+            }
+        }
+
+        void remove(String movementId) {
+            InventoryMovement movement = byId.remove(movementId);
+            if (movement == null) {
+                return;
+            }
+            forgetOrderMovement(movement);
+            ProductLedger product = movement.getProductId() == null ? null : byProduct.get(movement.getProductId());
+            if (product != null && movement.getCreatedAt() != null) {
+                product.remove(movement);
+            }
+        }
+
+        int install(ProductLedger product, ProductSnapshot snapshot) {
+            List<InventoryMovement> folded = product.install(snapshot);
+            for (InventoryMovement movement : folded) {
+                byId.remove(movement.getId());
+                forgetOrderMovement(movement);
+            }
+            return folded.size();
+        }
+
+        private void forgetOrderMovement(InventoryMovement movement) {
+            if (movement.getReferenceOrderId() == null) {
+                return;
+            }
+            byOrder.computeIfPresent(movement.getReferenceOrderId(), (ignored, movements) -> {
+                movements.removeIf(candidate -> candidate == movement);
+                return movements.isEmpty() ? null : movements;
+            });
+        }
+    }
+
+    /**
+     * Movements of one product after its snapshot. Writers synchronize on the ledger (appends
+     * for a product are already serialized by the service, so this is uncontended); readers
+     * take the published balance without locking.
+     */
+    private static final class ProductLedger {
+
+        private final String productId;
+        private final NavigableMap<MovementCursor, InventoryMovement> movements = new ConcurrentSkipListMap<>();
+        private volatile ProductSnapshot snapshot;
+        private volatile StockBalance balance = StockBalance.EMPTY;
+
+        ProductLedger(String productId) {
+            this.productId = productId;
+        }
+
+        synchronized boolean append(InventoryMovement movement) {
+            MovementCursor key = MovementCursor.of(movement);
+            if (snapshot != null && key.compareTo(snapshot.through()) <= 0) {
+                return false;
+            }
+            if (movements.putIfAbsent(key, movement) != null) {
+                return false;
+            }
+            Instant updatedAt = balance.updatedAt() == null || movement.getCreatedAt().isAfter(balance.updatedAt())
+                    ? movement.getCreatedAt()
+                    : balance.updatedAt();
+            balance = new StockBalance(balance.quantity() + signedQuantity(movement), updatedAt);
+            return true;
+        }
+
+        synchronized void remove(InventoryMovement movement) {
+            if (movements.remove(MovementCursor.of(movement)) != null) {
+                balance = new StockBalance(balance.quantity() - signedQuantity(movement), balance.updatedAt());
+            }
+        }
+
+        /**
+         * Builds the snapshot that folds every movement before {@code upper}, or returns null when
+         * there is nothing to fold.
+         */
+        synchronized ProductSnapshot snapshotBefore(MovementCursor upper) {
+            NavigableMap<MovementCursor, InventoryMovement> head = movements.headMap(upper, false);
+            if (head.isEmpty()) {
+                return null;
+            }
+            int quantity = snapshot == null ? 0 : snapshot.quantity();
+            Instant updatedAt = snapshot == null ? null : snapshot.updatedAt();
+            for (InventoryMovement movement : head.values()) {
+                quantity += signedQuantity(movement);
+                updatedAt = movement.getCreatedAt();
+            }
+            return new ProductSnapshot(productId, quantity, head.lastKey(), updatedAt);
+        }
+
+        /**
+         * Replaces the snapshot if {@code next} is newer and drops the movements it covers,
+         * returning them. The balance only moves if the dropped movements and the snapshot
+         * disagree, which happens when replay sees a snapshot before the movements it replaced.
+         */
+        synchronized List<InventoryMovement> install(ProductSnapshot next) {
+            if (snapshot != null && next.through().compareTo(snapshot.through()) <= 0) {
+                return List.of();
+            }
+            NavigableMap<MovementCursor, InventoryMovement> covered = movements.headMap(next.through(), true);
+            List<InventoryMovement> folded = new ArrayList<>(covered.values());
+            int foldedQuantity = 0;
+            for (InventoryMovement movement : folded) {
+                foldedQuantity += signedQuantity(movement);
+            }
+            covered.clear();
+
+            int previousQuantity = snapshot == null ? 0 : snapshot.quantity();
+            Instant updatedAt = balance.updatedAt() == null
+                    || (next.updatedAt() != null && next.updatedAt().isAfter(balance.updatedAt()))
+                    ? next.updatedAt()
+                    : balance.updatedAt();
+            balance = new StockBalance(balance.quantity() + next.quantity() - previousQuantity - foldedQuantity, updatedAt);
+            snapshot = next;
+            return folded;
+        }
+    }
 }
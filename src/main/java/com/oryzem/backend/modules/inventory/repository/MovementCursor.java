@@ -0,0 +1,22 @@
+package com.oryzem.backend.modules.inventory.repository;
+
+import com.oryzem.backend.modules.inventory.domain.InventoryMovement;
+
+import java.time.Instant;
+
+public record MovementCursor(Instant createdAt, String movementId) implements Comparable<MovementCursor> {
+
+    public static MovementCursor of(InventoryMovement movement) {
+        return new MovementCursor(movement.getCreatedAt(), movement.getId());
+    }
+
+    public static MovementCursor lowerBound(Instant createdAt) {
+        return new MovementCursor(createdAt, "");
+    }
+
+    @Override
+    public int compareTo(MovementCursor other) {
+        int byCreatedAt = createdAt.compareTo(other.createdAt);
+        return byCreatedAt != 0 ? byCreatedAt : movementId.compareTo(other.movementId);
+    }
+}
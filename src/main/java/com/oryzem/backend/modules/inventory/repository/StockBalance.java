@@ -0,0 +1,11 @@
+package com.oryzem.backend.modules.inventory.repository;
+
+import java.time.Instant;
+
+/**
+ * Quantity of a product derived from its movements, and the time of the latest one.
+ */
+public record StockBalance(int quantity, Instant updatedAt) {
+
+    public static final StockBalance EMPTY = new StockBalance(0, null);
+}
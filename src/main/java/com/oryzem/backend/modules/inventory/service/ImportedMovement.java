@@ -0,0 +1,7 @@
+package com.oryzem.backend.modules.inventory.service;
+
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
+
+/** A parsed, validated movement line of a bulk import. */
+record ImportedMovement(long line, InventoryMovementRequest request) {
+}
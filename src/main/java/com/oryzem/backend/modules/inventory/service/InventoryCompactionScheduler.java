@@ -0,0 +1,38 @@
+package com.oryzem.backend.modules.inventory.service;
+
+import com.oryzem.backend.modules.inventory.config.InventoryCompactionProperties;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Periodically folds old inventory movements into per-product snapshots to bound the ledger.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory.compaction", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryCompactionScheduler {
+
+    private final InventoryMovementRepository inventoryMovementRepository;
+    private final InventoryCompactionProperties properties;
+
+    @Scheduled(
+            initialDelayString = "${app.inventory.compaction.sweep-interval-seconds:3600}000",
+            fixedDelayString = "${app.inventory.compaction.sweep-interval-seconds:3600}000"
+    )
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(properties.minAge());
+        long startedAt = System.nanoTime();
+        int folded = inventoryMovementRepository.compact(cutoff);
+        if (folded > 0) {
+            log.info("Folded {} inventory movements older than {} into snapshots in {} ms",
+                    folded, cutoff, (System.nanoTime() - startedAt) / 1_000_000);
+        }
+    }
+}
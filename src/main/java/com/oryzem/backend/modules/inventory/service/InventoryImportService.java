@@ -0,0 +1,264 @@
+package com.oryzem.backend.modules.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportError;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bulk movement import from CSV or NDJSON. The body is read line by line, every line is checked
+ * against one snapshot of the tenant's product ids, and valid lines are applied in batches of
+ * {@value #BATCH_SIZE}, each under a single lock acquisition and journal record. Invalid lines are
+ * reported by line number and do not stop the import.
+ *
+ * <p>CSV columns are {@code productId,type,quantity,reason[,referenceOrderId[,minimumLevel]]}; a
+ * first line starting with {@code productId} is taken as the header. NDJSON lines use the fields
+ * of {@code POST /api/inventory/movements}. In both, a missing minimumLevel leaves it unchanged.
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryImportService {
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final ObjectMapper objectMapper;
+
+    public InventoryImportResponse importMovements(InputStream body, Format format) throws IOException {
+        Set<String> catalog = productRepository.findAllIds();
+
+        ImportReport report = new ImportReport();
+        List<ImportedMovement> batch = new ArrayList<>(BATCH_SIZE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+
+            InventoryMovementRequest request;
+            try {
+                request = format == Format.CSV ? parseCsv(line) : parseJson(line);
+            } catch (IllegalArgumentException ex) {
+                report.reject(lineNumber, null, ex.getMessage());
+                continue;
+            }
+            String error = validate(request, catalog);
+            if (error != null) {
+                report.reject(lineNumber, request.getProductId(), error);
+                continue;
+            }
+            batch.add(new ImportedMovement(lineNumber, request));
+            if (batch.size() == BATCH_SIZE) {
+                applyBatch(batch, report);
+            }
+        }
+        applyBatch(batch, report);
+        report.errors.sort(Comparator.comparingLong(InventoryImportError::getLine));
+
+        return InventoryImportResponse.builder()
+                .appliedCount(report.applied)
+                .failedCount(report.failed)
+                .errors(report.errors)
+                .build();
+    }
+
+    private void applyBatch(List<ImportedMovement> batch, ImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<InventoryImportError> rejected;
+        try {
+            rejected = inventoryService.applyImportBatch(batch);
+        } catch (RuntimeException ex) {
+            // Nothing of the batch was kept; report every line so the file can be replayed.
+            for (ImportedMovement movement : batch) {
+                report.reject(movement.line(), movement.request().getProductId(), ex.getMessage());
+            }
+            batch.clear();
+            return;
+        }
+        report.applied += batch.size() - rejected.size();
+        for (InventoryImportError error : rejected) {
+            report.reject(error.getLine(), error.getProductId(), error.getError());
+        }
+        batch.clear();
+    }
+
+    private static String validate(InventoryMovementRequest request, Set<String> catalog) {
+        if (request.getProductId() == null) {
+            return "productId is required";
+        }
+        if (!catalog.contains(request.getProductId())) {
+            return "Unknown productId: " + request.getProductId();
+        }
+        if (request.getType() == null) {
+            return "type is required";
+        }
+        if (request.getQuantity() < 1) {
+            return "quantity must be >= 1";
+        }
+        if (request.getReason() == null) {
+            return "reason is required";
+        }
+        return null;
+    }
+
+    private InventoryMovementRequest parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < 4 || fields.size() > 6) {
+            throw new IllegalArgumentException("Expected 4 to 6 columns but found " + fields.size());
+        }
+        return InventoryMovementRequest.builder()
+                .productId(trimToNull(fields.get(0)))
+                .type(parseType(trimToNull(fields.get(1))))
+                .quantity(parseInt(fields.get(2), "quantity"))
+                .reason(trimToNull(fields.get(3)))
+                .referenceOrderId(fields.size() > 4 ? trimToNull(fields.get(4)) : null)
+                .minimumLevel(fields.size() > 5 && trimToNull(fields.get(5)) != null ? parseInt(fields.get(5), "minimumLevel") : null)
+                .build();
+    }
+
+    private InventoryMovementRequest parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed JSON: " + ex.getOriginalMessage());
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+        return InventoryMovementRequest.builder()
+                .productId(textField(node, "productId"))
+                .type(parseType(textField(node, "type")))
+                .quantity(intField(node, "quantity", 0))
+                .reason(textField(node, "reason"))
+                .referenceOrderId(textField(node, "referenceOrderId"))
+                .minimumLevel(node.hasNonNull("minimumLevel") ? intField(node, "minimumLevel", 0) : null)
+                .build();
+    }
+
+    private static String textField(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : trimToNull(value.asText());
+    }
+
+    private static int intField(JsonNode node, String field, int defaultValue) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return defaultValue;
+        }
+        if (!value.canConvertToInt()) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+        return value.asInt();
+    }
+
+    private static InventoryMovementType parseType(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return InventoryMovementType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown type: " + value);
+        }
+    }
+
+    private static int parseInt(String value, String field) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(field + " must be an integer");
+        }
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.stripLeading().regionMatches(true, 0, "productId", 0, "productId".length());
+    }
+
+    /** Splits one CSV line; fields may be double-quoted, with {@code ""} for a literal quote. */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private static final class ImportReport {
+
+        private long applied;
+        private long failed;
+        private final List<InventoryImportError> errors = new ArrayList<>();
+
+        void reject(long line, String productId, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(InventoryImportError.builder()
+                        .line(line)
+                        .productId(productId)
+                        .error(error)
+                        .build());
+            }
+        }
+    }
+}
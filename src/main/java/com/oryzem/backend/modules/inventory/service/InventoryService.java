@@ -1,58 +1,104 @@
 package com.oryzem.backend.modules.inventory.service;
 
+import com.oryzem.backend.core.concurrent.StripedLocks;
+import com.oryzem.backend.core.concurrent.VersionedMap;
+import com.oryzem.backend.core.events.EventPublisher;
+import com.oryzem.backend.core.events.NoOpEventPublisher;
+import com.oryzem.backend.core.ids.IdGenerator;
+import com.oryzem.backend.core.ids.TimeOrderedIdGenerator;
+import com.oryzem.backend.core.tenant.TenantScope;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
 import com.oryzem.backend.modules.catalog.repository.ProductRepository;
 import com.oryzem.backend.modules.inventory.domain.InsufficientStockException;
 import com.oryzem.backend.modules.inventory.domain.InventoryItem;
 import com.oryzem.backend.modules.inventory.domain.InventoryMovement;
 import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import com.oryzem.backend.modules.inventory.domain.StockThresholdCrossedEvent;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportError;
 import com.oryzem.backend.modules.inventory.dto.InventoryItemResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementPageResponse;
 import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
 import com.oryzem.backend.modules.inventory.dto.InventoryMovementResponse;
+import com.oryzem.backend.modules.inventory.dto.InventorySnapshotResponse;
 import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
 import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.repository.MovementCursor;
+import com.oryzem.backend.modules.inventory.repository.StockBalance;
 import com.oryzem.backend.modules.orders.domain.OrderItem;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Stock levels and movements. Quantities are derived from the movement ledger; the inventory item
+ * only carries the product's settings. Writes lock the affected (tenant, product) pairs through
+ * striped locks, so operations on different products proceed in parallel; reads take no lock and
+ * see the last appended movement.
+ */
 @Service
 @RequiredArgsConstructor
 public class InventoryService {
 
     private static final String REASON_ORDER_CONFIRMED = "ORDER_CONFIRMED";
     private static final String REASON_ORDER_CANCELED_RESTOCK = "ORDER_CANCELED_RESTOCK";
+    private static final int STOCK_LOCK_STRIPES = 1024;
+    private static final int MAX_MOVEMENT_PAGE_SIZE = 200;
+    private static final String KEY_SEPARATOR = "::";
 
     private final ProductRepository productRepository;
     private final InventoryItemRepository inventoryItemRepository;
     private final InventoryMovementRepository inventoryMovementRepository;
+    @Autowired(required = false)
+    private IdGenerator idGenerator = TimeOrderedIdGenerator.shared();
+    private StockHoldRegistry stockHolds;
+    @Autowired(required = false)
+    private EventPublisher eventPublisher = new NoOpEventPublisher();
+    private final StripedLocks stockLocks = new StripedLocks(STOCK_LOCK_STRIPES);
+    // Products below their minimum level, per tenant. Built once per tenant from its items, then
+    // kept current by the movement paths while they hold the product's lock.
+    private final ConcurrentMap<String, Set<String>> lowStockByTenant = new ConcurrentHashMap<>();
+    // Versioned inventory positions per tenant for consistent all-product reads. Published by the
+    // write paths while they hold the products' locks, so one batch becomes one version.
+    private final ConcurrentMap<String, VersionedMap<String, InventoryItemResponse>> positionsByTenant = new ConcurrentHashMap<>();
+    // Distinguishes snapshot versions of this process from versions handed out before a restart.
+    private final String snapshotEpoch = Long.toString(System.currentTimeMillis(), 36);
 
-    public synchronized InventoryMovementResponse applyMovement(InventoryMovementRequest request) {
+    @Autowired(required = false)
+    public void setStockHolds(StockHoldRegistry stockHolds) {
+        this.stockHolds = stockHolds;
+        stockHolds.setExpiryListener(this::refreshExpiredHolds);
+    }
+
+    public InventoryMovementResponse applyMovement(InventoryMovementRequest request) {
         String productId = normalizeRequired(request.getProductId(), "productId");
         ensureProductExists(productId);
+        try (StripedLocks.Held ignored = stockLocks.lock(stockKey(productId))) {
+            return applyMovementLocked(productId, request);
+        }
+    }
 
-        InventoryItem current = inventoryItemRepository.findByProductId(productId)
-                .orElseGet(() -> emptyInventory(productId));
-
-        int minimumLevel = request.getMinimumLevel() == null
-                ? current.getMinimumLevel()
-                : Math.max(request.getMinimumLevel(), 0);
-
-        int quantityAvailable = applyDelta(current.getQuantityAvailable(), request.getQuantity(), request.getType(), productId);
-        InventoryItem updatedItem = InventoryItem.builder()
-                .productId(productId)
-                .quantityAvailable(quantityAvailable)
-                .minimumLevel(minimumLevel)
-                .updatedAt(Instant.now())
-                .build();
-        inventoryItemRepository.save(updatedItem);
+    private InventoryMovementResponse applyMovementLocked(String productId, InventoryMovementRequest request) {
+        // Validates the movement against the quantity derived from the ledger, less active holds.
+        int available = inventoryMovementRepository.findBalance(productId).quantity() - heldQuantity(productId);
+        applyDelta(available, request.getQuantity(), request.getType(), productId);
 
         InventoryMovement movement = InventoryMovement.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.nextId())
                 .productId(productId)
                 .type(request.getType())
                 .quantity(request.getQuantity())
@@ -61,77 +107,434 @@ public class InventoryService {
                 .createdAt(Instant.now())
                 .build();
         InventoryMovement savedMovement = inventoryMovementRepository.save(movement);
+
+        InventoryItem current = inventoryItemRepository.findByProductId(productId)
+                .orElseGet(() -> emptyInventory(productId));
+        if (request.getMinimumLevel() != null) {
+            int minimumLevel = Math.max(request.getMinimumLevel(), 0);
+            if (minimumLevel != current.getMinimumLevel()) {
+                current.setMinimumLevel(minimumLevel);
+                current.setUpdatedAt(savedMovement.getCreatedAt());
+                inventoryItemRepository.save(current);
+            }
+        }
+        trackThreshold(productId, inventoryMovementRepository.findBalance(productId).quantity(), current.getMinimumLevel());
+        publishPositions(List.of(productId));
         return toMovementResponse(savedMovement);
     }
 
-    public synchronized InventoryItemResponse getInventoryByProductId(String productId) {
+    public InventoryItemResponse getInventoryByProductId(String productId) {
         String normalizedProductId = normalizeRequired(productId, "productId");
         ensureProductExists(normalizedProductId);
         InventoryItem item = inventoryItemRepository.findByProductId(normalizedProductId)
                 .orElseGet(() -> emptyInventory(normalizedProductId));
-        return toInventoryResponse(item);
+        return toInventoryResponse(
+                item,
+                inventoryMovementRepository.findBalance(normalizedProductId),
+                heldQuantity(normalizedProductId)
+        );
     }
 
-    public synchronized void reserveStockForOrder(String orderId, List<OrderItem> items) {
+    /**
+     * Holds stock for an order that is not confirmed yet, replacing any earlier hold of the order.
+     * The hold counts against availability until the order is confirmed or canceled, or until its
+     * TTL ends. Holds nothing and throws if any line lacks stock; does nothing when holds are off.
+     */
+    public void holdStockForOrder(String orderId, List<OrderItem> items) {
+        if (stockHolds == null || items == null || items.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> quantitiesByProduct = quantitiesByProduct(items);
+        Set<String> productIds = quantitiesByProduct.keySet();
+        String holdKey = holdKey(orderId);
+
+        try (StripedLocks.Held ignored = stockLocks.lockAll(stockKeys(productIds))) {
+            Map<String, StockBalance> balances = inventoryMovementRepository.findBalances(productIds);
+            Map<String, Integer> previousHold = stockHolds.heldBy(holdKey);
+            Map<String, Integer> quantitiesByStockKey = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> entry : quantitiesByProduct.entrySet()) {
+                String stockKey = stockKey(entry.getKey());
+                int available = balances.get(entry.getKey()).quantity()
+                        - stockHolds.heldQuantity(stockKey)
+                        + previousHold.getOrDefault(stockKey, 0);
+                requireAvailable(entry.getKey(), available, entry.getValue());
+                quantitiesByStockKey.put(stockKey, entry.getValue());
+            }
+            stockHolds.place(holdKey, quantitiesByStockKey);
+            Set<String> affected = new LinkedHashSet<>(productIds);
+            previousHold.keySet().forEach(stockKey -> affected.add(productIdOf(stockKey)));
+            publishPositions(affected);
+        }
+    }
+
+    public void releaseHoldForOrder(String orderId) {
+        if (stockHolds == null) {
+            return;
+        }
+        String holdKey = holdKey(orderId);
+        Set<String> stockKeys = stockHolds.heldBy(holdKey).keySet();
+        if (stockKeys.isEmpty()) {
+            return;
+        }
+        try (StripedLocks.Held ignored = stockLocks.lockAll(stockKeys)) {
+            stockHolds.release(holdKey);
+            publishPositions(stockKeys.stream().map(this::productIdOf).toList());
+        }
+    }
+
+    public void reserveStockForOrder(String orderId, List<OrderItem> items) {
         if (items == null || items.isEmpty()) {
             throw new IllegalArgumentException("Order must contain at least one item");
         }
+        applyOrderMovements(orderId, items, InventoryMovementType.OUT, REASON_ORDER_CONFIRMED);
+    }
 
-        Map<String, Integer> quantitiesByProduct = items.stream()
-                .collect(Collectors.groupingBy(
-                        OrderItem::getProductId,
-                        Collectors.summingInt(OrderItem::getQuantity)
-                ));
+    public void releaseStockForOrder(String orderId, List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        applyOrderMovements(orderId, items, InventoryMovementType.IN, REASON_ORDER_CANCELED_RESTOCK);
+    }
+
+    public List<InventoryMovement> getMovementsByOrderId(String orderId) {
+        return inventoryMovementRepository.findByReferenceOrderId(orderId);
+    }
+
+    /**
+     * Lists a product's movements created in {@code [from, to)}, newest first, one page at a time.
+     */
+    public InventoryMovementPageResponse listMovements(String productId, Instant from, Instant to, String cursor, int size) {
+        String normalizedProductId = normalizeRequired(productId, "productId");
+        ensureProductExists(normalizedProductId);
+        if (size < 1 || size > MAX_MOVEMENT_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_MOVEMENT_PAGE_SIZE);
+        }
+
+        List<InventoryMovement> movements = inventoryMovementRepository.findByProductId(
+                normalizedProductId, from, to, decodeCursor(cursor), size);
+        String nextCursor = movements.size() < size ? null : encodeCursor(movements.get(movements.size() - 1));
+
+        return InventoryMovementPageResponse.builder()
+                .items(movements.stream().map(this::toMovementResponse).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        for (Map.Entry<String, Integer> entry : quantitiesByProduct.entrySet()) {
-            String productId = normalizeRequired(entry.getKey(), "productId");
-            ensureProductExists(productId);
+    /**
+     * Applies one movement per order line as a single batch: all products are locked, validated
+     * and read once, then the movements are appended together. Quantities are derived from the
+     * ledger, so if anything fails no quantity changes. An OUT batch may use the order's own hold
+     * and converts it into the movements.
+     */
+    private void applyOrderMovements(String orderId, List<OrderItem> items, InventoryMovementType type, String reason) {
+        Map<String, Integer> quantitiesByProduct = quantitiesByProduct(items);
+        Set<String> productIds = quantitiesByProduct.keySet();
 
-            InventoryItem item = inventoryItemRepository.findByProductId(productId)
-                    .orElseGet(() -> emptyInventory(productId));
-            if (item.getQuantityAvailable() < entry.getValue()) {
-                throw new InsufficientStockException(
-                        "Insufficient stock for product " + productId
-                                + ": available=" + item.getQuantityAvailable()
-                                + ", requested=" + entry.getValue()
-                );
+        try (StripedLocks.Held ignored = stockLocks.lockAll(stockKeys(productIds))) {
+            Map<String, ProductView> products = productRepository.findViewsById(productIds);
+            Map<String, StockBalance> balances = inventoryMovementRepository.findBalances(productIds);
+            Map<String, Integer> ownHold = stockHolds == null || type != InventoryMovementType.OUT || trimToNull(orderId) == null
+                    ? Map.of()
+                    : stockHolds.heldBy(holdKey(orderId));
+            Instant now = Instant.now();
+
+            for (Map.Entry<String, Integer> entry : quantitiesByProduct.entrySet()) {
+                String productId = entry.getKey();
+                if (!products.containsKey(productId)) {
+                    throw new IllegalArgumentException("Unknown productId: " + productId);
+                }
+                if (type == InventoryMovementType.OUT) {
+                    int available = balances.get(productId).quantity()
+                            - heldQuantity(productId)
+                            + ownHold.getOrDefault(stockKey(productId), 0);
+                    requireAvailable(productId, available, entry.getValue());
+                }
+            }
+
+            List<InventoryMovement> movements = new ArrayList<>(items.size());
+            for (OrderItem item : items) {
+                movements.add(InventoryMovement.builder()
+                        .id(idGenerator.nextId())
+                        .productId(normalizeRequired(item.getProductId(), "productId"))
+                        .type(type)
+                        .quantity(item.getQuantity())
+                        .reason(reason)
+                        .referenceOrderId(trimToNull(orderId))
+                        .createdAt(now)
+                        .build());
+            }
+
+            try {
+                inventoryMovementRepository.saveAll(movements);
+            } catch (RuntimeException ex) {
+                // The batch may already be indexed in memory when the journal write fails.
+                inventoryMovementRepository.deleteAll(movements);
+                throw ex;
+            }
+            if (!ownHold.isEmpty()) {
+                stockHolds.release(holdKey(orderId));
             }
+
+            Map<String, InventoryItem> itemsByProductId = inventoryItemRepository.findAllByProductId(productIds);
+            Map<String, StockBalance> updatedBalances = inventoryMovementRepository.findBalances(productIds);
+            for (String productId : productIds) {
+                InventoryItem item = itemsByProductId.get(productId);
+                trackThreshold(productId, updatedBalances.get(productId).quantity(), item == null ? 0 : item.getMinimumLevel());
+            }
+            publishPositions(productIds);
         }
+    }
 
-        for (OrderItem item : items) {
-            createOrderMovement(orderId, item.getProductId(), item.getQuantity(), InventoryMovementType.OUT, REASON_ORDER_CONFIRMED);
+    /**
+     * Version tag of the current tenant's inventory; it changes whenever any position changes.
+     */
+    public String inventoryVersion() {
+        return snapshotEpoch + "-" + tenantPositions().version();
+    }
+
+    /**
+     * Positions of every product with inventory, all as of the same version. Reads do not block
+     * stock writes.
+     */
+    public InventorySnapshotResponse getInventorySnapshot() {
+        VersionedMap.Snapshot<String, InventoryItemResponse> snapshot = tenantPositions().snapshot();
+        List<InventoryItemResponse> items = new ArrayList<>(snapshot.entries().values());
+        items.sort(Comparator.comparing(InventoryItemResponse::getProductId));
+        return InventorySnapshotResponse.builder()
+                .version(snapshotEpoch + "-" + snapshot.version())
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Products of the current tenant whose stock is below their minimum level, read from the
+     * maintained low-stock set rather than by scanning the inventory.
+     */
+    public List<InventoryItemResponse> listLowStock() {
+        List<String> productIds = lowStockProducts().stream().sorted().toList();
+        return new ArrayList<>(positionsOf(productIds).values());
+    }
+
+    /**
+     * Keeps the low-stock set current and publishes an event only when the product moves into
+     * or out of it. Called with the product's lock held.
+     */
+    private void trackThreshold(String productId, int quantity, int minimumLevel) {
+        boolean belowMinimum = quantity < minimumLevel;
+        Set<String> lowStock = lowStockProducts();
+        boolean crossed = belowMinimum ? lowStock.add(productId) : lowStock.remove(productId);
+        if (crossed) {
+            eventPublisher.publish(new StockThresholdCrossedEvent(
+                    TimeOrderedIdGenerator.shared().nextUuid(),
+                    Instant.now(),
+                    TenantScope.current(),
+                    productId,
+                    quantity,
+                    minimumLevel,
+                    belowMinimum
+            ));
         }
     }
 
-    public synchronized void releaseStockForOrder(String orderId, List<OrderItem> items) {
-        if (items == null || items.isEmpty()) {
-            return;
+    /**
+     * Publishes the current positions of the given products as one version. Called with the
+     * products' locks held.
+     */
+    private void publishPositions(Collection<String> productIds) {
+        tenantPositions().publish(positionsOf(productIds));
+    }
+
+    private VersionedMap<String, InventoryItemResponse> tenantPositions() {
+        return positionsByTenant.computeIfAbsent(TenantScope.current(), ignored -> {
+            // Seeded from the repositories the first time the tenant is used after a start.
+            Set<String> productIds = new LinkedHashSet<>(inventoryMovementRepository.findProductIds());
+            for (InventoryItem item : inventoryItemRepository.findAll()) {
+                productIds.add(item.getProductId());
+            }
+            VersionedMap<String, InventoryItemResponse> positions = new VersionedMap<>();
+            positions.publish(positionsOf(productIds));
+            return positions;
+        });
+    }
+
+    private Map<String, InventoryItemResponse> positionsOf(Collection<String> productIds) {
+        Map<String, InventoryItem> itemsByProductId = inventoryItemRepository.findAllByProductId(productIds);
+        Map<String, StockBalance> balances = inventoryMovementRepository.findBalances(productIds);
+        Map<String, InventoryItemResponse> positions = new LinkedHashMap<>();
+        for (String productId : productIds) {
+            InventoryItem item = itemsByProductId.getOrDefault(productId, emptyInventory(productId));
+            positions.put(productId, toInventoryResponse(item, balances.get(productId), heldQuantity(productId)));
         }
+        return positions;
+    }
 
+    /**
+     * Expired holds change availability without a stock write, so their positions are refreshed
+     * here, under the same locks the write paths use.
+     */
+    private void refreshExpiredHolds(Set<String> stockKeys) {
+        for (String stockKey : stockKeys) {
+            // Waits for a seed in progress, which may have read the hold before it expired.
+            VersionedMap<String, InventoryItemResponse> positions =
+                    positionsByTenant.computeIfPresent(tenantOf(stockKey), (tenant, current) -> current);
+            if (positions == null) {
+                continue;
+            }
+            try (StripedLocks.Held ignored = stockLocks.lock(stockKey)) {
+                int held = stockHolds.heldQuantity(stockKey);
+                positions.update(productIdOf(stockKey), position -> InventoryItemResponse.builder()
+                        .productId(position.getProductId())
+                        .quantityAvailable(position.getQuantityAvailable() + position.getQuantityHeld() - held)
+                        .quantityHeld(held)
+                        .minimumLevel(position.getMinimumLevel())
+                        .updatedAt(position.getUpdatedAt())
+                        .build());
+            }
+        }
+    }
+
+    private String tenantOf(String stockKey) {
+        return stockKey.substring(0, stockKey.lastIndexOf(KEY_SEPARATOR));
+    }
+
+    private String productIdOf(String stockKey) {
+        return stockKey.substring(stockKey.lastIndexOf(KEY_SEPARATOR) + KEY_SEPARATOR.length());
+    }
+
+    private Set<String> lowStockProducts() {
+        return lowStockByTenant.computeIfAbsent(TenantScope.current(), ignored -> {
+            Set<String> lowStock = ConcurrentHashMap.newKeySet();
+            for (InventoryItem item : inventoryItemRepository.findAll()) {
+                if (inventoryMovementRepository.findBalance(item.getProductId()).quantity() < item.getMinimumLevel()) {
+                    lowStock.add(item.getProductId());
+                }
+            }
+            return lowStock;
+        });
+    }
+
+    /**
+     * Applies a batch of validated import lines under one lock acquisition: each line is checked
+     * in order against the running quantity of its product, accepted lines are appended as one
+     * journal record and changed minimum levels are saved together. Returns the rejected lines.
+     */
+    List<InventoryImportError> applyImportBatch(List<ImportedMovement> batch) {
+        Set<String> productIds = new LinkedHashSet<>();
+        for (ImportedMovement imported : batch) {
+            productIds.add(imported.request().getProductId());
+        }
+
+        try (StripedLocks.Held ignored = stockLocks.lockAll(stockKeys(productIds))) {
+            Map<String, StockBalance> balances = inventoryMovementRepository.findBalances(productIds);
+            Map<String, InventoryItem> itemsByProductId = inventoryItemRepository.findAllByProductId(productIds);
+            Map<String, Integer> quantities = new HashMap<>();
+            Map<String, Integer> minimumLevels = new HashMap<>();
+            for (String productId : productIds) {
+                quantities.put(productId, balances.get(productId).quantity());
+                InventoryItem item = itemsByProductId.get(productId);
+                minimumLevels.put(productId, item == null ? 0 : item.getMinimumLevel());
+            }
+
+            Instant now = Instant.now();
+            List<InventoryImportError> rejected = new ArrayList<>();
+            List<InventoryMovement> movements = new ArrayList<>(batch.size());
+            Set<String> changedMinimums = new LinkedHashSet<>();
+            for (ImportedMovement imported : batch) {
+                InventoryMovementRequest request = imported.request();
+                String productId = request.getProductId();
+                int quantity = quantities.get(productId);
+                int updated;
+                try {
+                    applyDelta(quantity - heldQuantity(productId), request.getQuantity(), request.getType(), productId);
+                    updated = request.getType() == InventoryMovementType.OUT
+                            ? quantity - request.getQuantity()
+                            : quantity + request.getQuantity();
+                } catch (InsufficientStockException ex) {
+                    rejected.add(InventoryImportError.builder()
+                            .line(imported.line())
+                            .productId(productId)
+                            .error("Insufficient stock for product " + productId
+                                    + ": available=" + (quantity - heldQuantity(productId))
+                                    + ", requested=" + request.getQuantity())
+                            .build());
+                    continue;
+                }
+                quantities.put(productId, updated);
+                if (request.getMinimumLevel() != null) {
+                    int minimumLevel = Math.max(request.getMinimumLevel(), 0);
+                    if (minimumLevels.put(productId, minimumLevel) != minimumLevel) {
+                        changedMinimums.add(productId);
+                    }
+                }
+                movements.add(InventoryMovement.builder()
+                        .id(idGenerator.nextId())
+                        .productId(productId)
+                        .type(request.getType())
+                        .quantity(request.getQuantity())
+                        .reason(request.getReason())
+                        .referenceOrderId(request.getReferenceOrderId())
+                        .createdAt(now)
+                        .build());
+            }
+
+            try {
+                inventoryMovementRepository.saveAll(movements);
+            } catch (RuntimeException ex) {
+                inventoryMovementRepository.deleteAll(movements);
+                throw ex;
+            }
+            if (!changedMinimums.isEmpty()) {
+                List<InventoryItem> items = new ArrayList<>(changedMinimums.size());
+                for (String productId : changedMinimums) {
+                    InventoryItem item = itemsByProductId.getOrDefault(productId, emptyInventory(productId));
+                    item.setMinimumLevel(minimumLevels.get(productId));
+                    item.setUpdatedAt(now);
+                    items.add(item);
+                }
+                inventoryItemRepository.saveAll(items);
+            }
+            for (String productId : productIds) {
+                trackThreshold(productId, quantities.get(productId), minimumLevels.get(productId));
+            }
+            publishPositions(productIds);
+            return rejected;
+        }
+    }
+
+    private Map<String, Integer> quantitiesByProduct(List<OrderItem> items) {
+        Map<String, Integer> quantitiesByProduct = new LinkedHashMap<>();
         for (OrderItem item : items) {
-            createOrderMovement(orderId, item.getProductId(), item.getQuantity(), InventoryMovementType.IN, REASON_ORDER_CANCELED_RESTOCK);
+            quantitiesByProduct.merge(normalizeRequired(item.getProductId(), "productId"), item.getQuantity(), Integer::sum);
         }
+        return quantitiesByProduct;
     }
 
-    public List<InventoryMovement> getMovementsByOrderId(String orderId) {
-        return inventoryMovementRepository.findByReferenceOrderId(orderId);
+    private void requireAvailable(String productId, int available, int requested) {
+        if (available < requested) {
+            throw new InsufficientStockException(
+                    "Insufficient stock for product " + productId
+                            + ": available=" + available
+                            + ", requested=" + requested
+            );
+        }
     }
 
-    private void createOrderMovement(
-            String orderId,
-            String productId,
-            int quantity,
-            InventoryMovementType type,
-            String reason
-    ) {
-        InventoryMovementRequest movementRequest = InventoryMovementRequest.builder()
-                .productId(productId)
-                .type(type)
-                .quantity(quantity)
-                .reason(reason)
-                .referenceOrderId(orderId)
-                .build();
-        applyMovement(movementRequest);
+    private int heldQuantity(String productId) {
+        return stockHolds == null ? 0 : stockHolds.heldQuantity(stockKey(productId));
+    }
+
+    private String holdKey(String orderId) {
+        return TenantScope.current() + KEY_SEPARATOR + normalizeRequired(orderId, "orderId");
+    }
+
+    private List<String> stockKeys(Collection<String> productIds) {
+        return productIds.stream()
+                .map(productId -> stockKey(normalizeRequired(productId, "productId")))
+                .toList();
+    }
+
+    private String stockKey(String productId) {
+        return TenantScope.current() + KEY_SEPARATOR + productId;
     }
 
     private int applyDelta(int currentQuantity, int quantity, InventoryMovementType type, String productId) {
@@ -152,16 +555,14 @@ public class InventoryService {
     }
 
     private void ensureProductExists(String productId) {
-        productRepository.findById(productId)
+        productRepository.findViewById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown productId: " + productId));
     }
 
     private InventoryItem emptyInventory(String productId) {
         return InventoryItem.builder()
                 .productId(productId)
-                .quantityAvailable(0)
                 .minimumLevel(0)
-                .updatedAt(Instant.now())
                 .build();
     }
 
@@ -177,15 +578,42 @@ public class InventoryService {
                 .build();
     }
 
-    private InventoryItemResponse toInventoryResponse(InventoryItem item) {
+    private InventoryItemResponse toInventoryResponse(InventoryItem item, StockBalance balance, int quantityHeld) {
+        Instant updatedAt = item.getUpdatedAt();
+        if (updatedAt == null || (balance.updatedAt() != null && balance.updatedAt().isAfter(updatedAt))) {
+            updatedAt = balance.updatedAt() == null ? Instant.now() : balance.updatedAt();
+        }
         return InventoryItemResponse.builder()
                 .productId(item.getProductId())
-                .quantityAvailable(item.getQuantityAvailable())
+                .quantityAvailable(balance.quantity() - quantityHeld)
+                .quantityHeld(quantityHeld)
                 .minimumLevel(item.getMinimumLevel())
-                .updatedAt(item.getUpdatedAt())
+                .updatedAt(updatedAt)
                 .build();
     }
 
+    private String encodeCursor(InventoryMovement movement) {
+        Instant createdAt = movement.getCreatedAt();
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + movement.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MovementCursor decodeCursor(String cursor) {
+        String normalized = trimToNull(cursor);
+        if (normalized == null) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(normalized), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new MovementCursor(createdAt, parts[2]);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
     private String normalizeRequired(String value, String fieldName) {
         String normalized = trimToNull(value);
         if (normalized == null) {
@@ -0,0 +1,137 @@
+package com.oryzem.backend.modules.inventory.service;
+
+import com.oryzem.backend.core.concurrent.HashedTimingWheel;
+import com.oryzem.backend.modules.inventory.config.InventoryHoldProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Soft stock holds of orders that are not confirmed yet, keyed by (tenant, order), with the total
+ * held per (tenant, product). Holds expire after the configured TTL through a hashed timing wheel,
+ * so expiry costs O(1) per hold instead of a scan over every hold.
+ *
+ * <p>Whoever removes a hold from the map, release or expiry, gives its quantities back, so a
+ * hold is never returned twice. Placing holds is serialized per product by
+ * {@link InventoryService}; expiry only ever makes more stock available.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory.holds", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class StockHoldRegistry {
+
+    private final Duration ttl;
+    private final HashedTimingWheel<Hold> expiries;
+    private final ConcurrentMap<String, Hold> holdsByKey = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> heldByStockKey = new ConcurrentHashMap<>();
+    private volatile Consumer<Set<String>> expiryListener = stockKeys -> {
+    };
+
+    public StockHoldRegistry(InventoryHoldProperties properties) {
+        this.ttl = properties.ttl();
+        this.expiries = new HashedTimingWheel<>(properties.tickMillis(), properties.wheelSize(), System.currentTimeMillis());
+    }
+
+    public int heldQuantity(String stockKey) {
+        return heldByStockKey.getOrDefault(stockKey, 0);
+    }
+
+    /** Quantities held by one hold, by stock key; empty when there is no active hold. */
+    public Map<String, Integer> heldBy(String holdKey) {
+        Hold hold = holdsByKey.get(holdKey);
+        return hold == null ? Map.of() : hold.quantitiesByStockKey;
+    }
+
+    /**
+     * Places a hold, replacing any previous hold under the same key, and starts its TTL.
+     */
+    public void place(String holdKey, Map<String, Integer> quantitiesByStockKey) {
+        Hold hold = new Hold(holdKey, Map.copyOf(quantitiesByStockKey));
+        hold.quantitiesByStockKey.forEach((stockKey, quantity) -> heldByStockKey.merge(stockKey, quantity, Integer::sum));
+        Hold previous = holdsByKey.put(holdKey, hold);
+        if (previous != null) {
+            cancelExpiry(previous);
+            giveBack(previous);
+        }
+        hold.expiry = expiries.schedule(hold, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    public void release(String holdKey) {
+        Hold hold = holdsByKey.remove(holdKey);
+        if (hold != null) {
+            cancelExpiry(hold);
+            giveBack(hold);
+        }
+    }
+
+    /**
+     * Called, outside of any lock, with the stock keys of each hold that expires.
+     */
+    void setExpiryListener(Consumer<Set<String>> expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+
+    public int activeHolds() {
+        return holdsByKey.size();
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.inventory.holds.tick-millis:1000}",
+            fixedDelayString = "${app.inventory.holds.tick-millis:1000}"
+    )
+    public void expireDue() {
+        int expired = expireDue(System.currentTimeMillis());
+        if (expired > 0) {
+            log.debug("Expired {} stock holds", expired);
+        }
+    }
+
+    /**
+     * Expires every hold whose TTL ended at or before {@code nowMillis}.
+     */
+    public int expireDue(long nowMillis) {
+        int[] expired = new int[1];
+        expiries.advance(nowMillis, hold -> {
+            if (holdsByKey.remove(hold.key, hold)) {
+                giveBack(hold);
+                expired[0]++;
+                expiryListener.accept(hold.quantitiesByStockKey.keySet());
+            }
+        });
+        return expired[0];
+    }
+
+    private void giveBack(Hold hold) {
+        hold.quantitiesByStockKey.forEach((stockKey, quantity) -> heldByStockKey.computeIfPresent(
+                stockKey,
+                (ignored, held) -> held - quantity <= 0 ? null : held - quantity
+        ));
+    }
+
+    private static void cancelExpiry(Hold hold) {
+        HashedTimingWheel.Timeout<Hold> expiry = hold.expiry;
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+    private static final class Hold {
+
+        private final String key;
+        private final Map<String, Integer> quantitiesByStockKey;
+        private volatile HashedTimingWheel.Timeout<Hold> expiry;
+
+        private Hold(String key, Map<String, Integer> quantitiesByStockKey) {
+            this.key = key;
+            this.quantitiesByStockKey = quantitiesByStockKey;
+        }
+    }
+}
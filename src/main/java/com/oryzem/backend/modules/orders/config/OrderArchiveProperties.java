@@ -0,0 +1,26 @@
+package com.oryzem.backend.modules.orders.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.orders.archive")
+public record OrderArchiveProperties(
+        boolean enabled,
+        String directory,
+        Duration minAge,
+        long sweepIntervalSeconds,
+        int blockSize
+) {
+    private static final String DEFAULT_DIRECTORY = "data/archive";
+    private static final Duration DEFAULT_MIN_AGE = Duration.ofDays(7);
+    private static final long DEFAULT_SWEEP_INTERVAL_SECONDS = 900;
+    private static final int DEFAULT_BLOCK_SIZE = 256;
+
+    public OrderArchiveProperties {
+        directory = directory == null || directory.isBlank() ? DEFAULT_DIRECTORY : directory.trim();
+        minAge = minAge == null || minAge.isNegative() ? DEFAULT_MIN_AGE : minAge;
+        sweepIntervalSeconds = sweepIntervalSeconds > 0 ? sweepIntervalSeconds : DEFAULT_SWEEP_INTERVAL_SECONDS;
+        blockSize = blockSize > 0 ? blockSize : DEFAULT_BLOCK_SIZE;
+    }
+}
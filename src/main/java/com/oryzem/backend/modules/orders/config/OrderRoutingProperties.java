@@ -0,0 +1,20 @@
+package com.oryzem.backend.modules.orders.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.orders.routing")
+public record OrderRoutingProperties(
+        int recentCapacity,
+        int expectedLegacyOrders,
+        double falsePositiveRate
+) {
+    private static final int DEFAULT_RECENT_CAPACITY = 100_000;
+    private static final int DEFAULT_EXPECTED_LEGACY_ORDERS = 1_000_000;
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    public OrderRoutingProperties {
+        recentCapacity = recentCapacity > 0 ? recentCapacity : DEFAULT_RECENT_CAPACITY;
+        expectedLegacyOrders = expectedLegacyOrders > 0 ? expectedLegacyOrders : DEFAULT_EXPECTED_LEGACY_ORDERS;
+        falsePositiveRate = falsePositiveRate > 0 && falsePositiveRate < 1 ? falsePositiveRate : DEFAULT_FALSE_POSITIVE_RATE;
+    }
+}
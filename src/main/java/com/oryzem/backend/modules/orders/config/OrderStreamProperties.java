@@ -0,0 +1,26 @@
+package com.oryzem.backend.modules.orders.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.orders.stream")
+public record OrderStreamProperties(
+        int replayBufferSize,
+        int connectionQueueSize,
+        long heartbeatSeconds,
+        long connectionTimeoutSeconds,
+        int senderThreads
+) {
+    private static final int DEFAULT_REPLAY_BUFFER_SIZE = 1024;
+    private static final int DEFAULT_CONNECTION_QUEUE_SIZE = 256;
+    private static final long DEFAULT_HEARTBEAT_SECONDS = 15;
+    private static final long DEFAULT_CONNECTION_TIMEOUT_SECONDS = 1800;
+    private static final int DEFAULT_SENDER_THREADS = 4;
+
+    public OrderStreamProperties {
+        replayBufferSize = replayBufferSize > 0 ? replayBufferSize : DEFAULT_REPLAY_BUFFER_SIZE;
+        connectionQueueSize = connectionQueueSize > 0 ? connectionQueueSize : DEFAULT_CONNECTION_QUEUE_SIZE;
+        heartbeatSeconds = heartbeatSeconds > 0 ? heartbeatSeconds : DEFAULT_HEARTBEAT_SECONDS;
+        connectionTimeoutSeconds = connectionTimeoutSeconds > 0 ? connectionTimeoutSeconds : DEFAULT_CONNECTION_TIMEOUT_SECONDS;
+        senderThreads = senderThreads > 0 ? senderThreads : DEFAULT_SENDER_THREADS;
+    }
+}
@@ -1,10 +1,16 @@
 package com.oryzem.backend.modules.orders.controller;
 
-import com.oryzem.backend.modules.orders.domain.OrderNotFoundException;
+import com.oryzem.backend.core.tenant.TenantContext;
+import com.oryzem.backend.modules.orders.dto.BatchCreateOrderRequest;
+import com.oryzem.backend.modules.orders.dto.BatchCreateOrderResponse;
 import com.oryzem.backend.modules.orders.dto.CreateOrderRequest;
 import com.oryzem.backend.modules.orders.dto.OrderResponse;
+import com.oryzem.backend.modules.orders.dto.OrderRoutingStatsResponse;
 import com.oryzem.backend.modules.orders.service.CanonicalOrderCommandService;
 import com.oryzem.backend.modules.orders.service.CanonicalOrderQueryService;
+import com.oryzem.backend.modules.orders.service.OrderChangeFeed;
+import com.oryzem.backend.modules.orders.service.OrderExportService;
+import com.oryzem.backend.modules.orders.service.OrderLocationRouter;
 import com.oryzem.backend.modules.orders.service.OrderService;
 import com.oryzem.backend.shared.dto.ApiErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,17 +24,27 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -37,9 +53,15 @@ import java.time.LocalDate;
 @SecurityRequirement(name = "bearerAuth")
 public class OrderController {
 
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
     private final CanonicalOrderQueryService canonicalOrderQueryService;
     private final CanonicalOrderCommandService canonicalOrderCommandService;
+    private final OrderLocationRouter orderLocationRouter;
+    private final OrderChangeFeed orderChangeFeed;
 
     @PostMapping
     @Operation(
@@ -80,6 +102,38 @@ public class OrderController {
         return ResponseEntity.status(status).body(response);
     }
 
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Create orders in batch",
+            description = "Creates up to 500 orders in one call. Products are resolved once for the whole batch and each order "
+                    + "is reported individually as CREATED, DUPLICATE, or ERROR without failing the rest of the batch."
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+            required = true,
+            description = "List of order payloads"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed; see per-order results"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Empty or oversized batch",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<BatchCreateOrderResponse> createOrders(@Valid @RequestBody BatchCreateOrderRequest request) {
+        return ResponseEntity.ok(orderService.createOrders(request.getOrders()));
+    }
+
     @GetMapping
     @Operation(
             summary = "List orders from the canonical Postgres model",
@@ -120,10 +174,124 @@ public class OrderController {
         return ResponseEntity.ok(canonicalOrderQueryService.listOrders(status, storeId, from, to, page, size));
     }
 
+    @GetMapping(value = "/export", produces = NDJSON_MEDIA_TYPE)
+    @Operation(
+            summary = "Export orders as NDJSON",
+            description = "Streams every order created in the date range as newline-delimited JSON, newest first. "
+                    + "The response is gzip-encoded when the client sends Accept-Encoding: gzip."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Orders streamed successfully"),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid date range",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Start date (inclusive) in ISO format", example = "2026-03-01")
+            @RequestParam(required = false) LocalDate from,
+            @Parameter(description = "End date (inclusive) in ISO format", example = "2026-03-31")
+            @RequestParam(required = false) LocalDate to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        Instant fromInstant = from == null ? null : from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant toInstant = to == null ? null : to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        if (fromInstant != null && toInstant != null && !fromInstant.isBefore(toInstant)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        // The body is written on an async thread, so carry the caller's tenant over explicitly.
+        String tenantId = TenantContext.getTenantId();
+        StreamingResponseBody body = output -> {
+            String previousTenantId = TenantContext.getTenantId();
+            TenantContext.setTenantId(tenantId);
+            try {
+                if (gzip) {
+                    GZIPOutputStream gzipOutput = new GZIPOutputStream(output, EXPORT_BUFFER_SIZE);
+                    orderExportService.writeNdjson(fromInstant, toInstant, gzipOutput);
+                    gzipOutput.finish();
+                } else {
+                    orderExportService.writeNdjson(fromInstant, toInstant, new BufferedOutputStream(output, EXPORT_BUFFER_SIZE));
+                }
+            } finally {
+                TenantContext.setTenantId(previousTenantId);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_MEDIA_TYPE))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream order changes",
+            description = "Server-Sent Events stream of order state changes for the current tenant. Each change is an "
+                    + "`order` event; reconnect with Last-Event-ID to receive the changes missed meanwhile. A `reset` "
+                    + "event means changes were skipped and the client should reload its orders."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Stream opened"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public SseEmitter streamOrderChanges(
+            @Parameter(description = "Id of the last event received before reconnecting")
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return orderChangeFeed.open(lastEventId);
+    }
+
+    @GetMapping("/routing/stats")
+    @Operation(
+            summary = "Order routing counters",
+            description = "Returns hit and miss counters of the index that routes order ids to the canonical or legacy store."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Counters returned successfully"),
+            @ApiResponse(
+                    responseCode = "401",
+                    description = "Authentication required",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "403",
+                    description = "Insufficient permissions",
+                    content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+            )
+    })
+    public ResponseEntity<OrderRoutingStatsResponse> getRoutingStats() {
+        return ResponseEntity.ok(orderLocationRouter.stats());
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Get order by id",
-            description = "Returns a single order by identifier, using the canonical model with fallback to the legacy service."
+            description = "Returns a single order by identifier from the canonical model or the legacy service, whichever owns it."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Order returned successfully"),
@@ -146,11 +314,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> getOrderById(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderQueryService.getOrderById(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.getOrderById(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderQueryService::getOrderById, orderService::getOrderById));
     }
 
     @PostMapping("/{id}/confirm")
@@ -184,11 +348,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> confirmOrder(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderCommandService.confirmOrder(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.confirmOrder(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderCommandService::confirmOrder, orderService::confirmOrder));
     }
 
     @PostMapping("/{id}/cancel")
@@ -222,11 +382,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> cancelOrder(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderCommandService.cancelOrder(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.cancelOrder(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderCommandService::cancelOrder, orderService::cancelOrder));
     }
 
     @PostMapping("/{id}/prepare")
@@ -260,11 +416,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> prepareOrder(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderCommandService.startPreparing(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.startPreparing(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderCommandService::startPreparing, orderService::startPreparing));
     }
 
     @PostMapping("/{id}/dispatch")
@@ -298,11 +450,7 @@ public class OrderController {
     public ResponseEntity<OrderResponse> dispatchOrder(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderCommandService.dispatchOrder(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.dispatchOrder(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderCommandService::dispatchOrder, orderService::dispatchOrder));
     }
 
     @PostMapping("/{id}/complete")
@@ -336,10 +484,6 @@ public class OrderController {
     public ResponseEntity<OrderResponse> completeOrder(
             @Parameter(description = "Order identifier", example = "ORD-20260306-001")
             @PathVariable String id) {
-        try {
-            return ResponseEntity.ok(canonicalOrderCommandService.completeOrder(id));
-        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
-            return ResponseEntity.ok(orderService.completeOrder(id));
-        }
+        return ResponseEntity.ok(orderLocationRouter.route(id, canonicalOrderCommandService::completeOrder, orderService::completeOrder));
     }
 }
@@ -0,0 +1,47 @@
+package com.oryzem.backend.modules.orders.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Fixed-point amounts stored as a {@code long} count of the currency's minor units (centavos for
+ * BRL). Orders keep amounts in this form and only convert to {@link BigDecimal} at the API boundary.
+ */
+public final class Money {
+
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("BRL");
+
+    private Money() {
+    }
+
+    public static long toMinorUnits(BigDecimal amount, Currency currency) {
+        try {
+            return amount.setScale(currency.getDefaultFractionDigits(), RoundingMode.HALF_UP)
+                    .unscaledValue()
+                    .longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Amount out of range: " + amount.toPlainString());
+        }
+    }
+
+    public static BigDecimal toDecimal(long minorUnits, Currency currency) {
+        return BigDecimal.valueOf(minorUnits, currency.getDefaultFractionDigits());
+    }
+
+    public static long lineTotal(long unitMinorUnits, int quantity) {
+        try {
+            return Math.multiplyExact(unitMinorUnits, quantity);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Line total out of range");
+        }
+    }
+
+    public static long add(long leftMinorUnits, long rightMinorUnits) {
+        try {
+            return Math.addExact(leftMinorUnits, rightMinorUnits);
+        } catch (ArithmeticException ex) {
+            throw new IllegalArgumentException("Order total out of range");
+        }
+    }
+}
@@ -1,34 +1,65 @@
 package com.oryzem.backend.modules.orders.domain;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-import java.math.BigDecimal;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Currency;
 import java.util.List;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-@Builder
+/**
+ * Immutable order snapshot. Repositories hand out the stored instance; a change is a new
+ * snapshot built with {@link #toBuilder()}, which shares the (already frozen) item list.
+ * Amounts are kept in minor units of {@link #currency}; see {@link Money}.
+ */
+@Value
 public class Order {
 
-    private String id;
-    private OrderSource source;
-    private String merchantId;
-    private String externalId;
-    private String customerName;
+    String id;
+    OrderSource source;
+    String merchantId;
+    String externalId;
+    String customerName;
+    List<OrderItem> items;
+    Currency currency;
+    long totalAmountMinor;
+    OrderStatus status;
+    Instant createdAt;
+    Instant updatedAt;
+    boolean stockAllocated;
+    String allocationError;
+    long version;
 
-    @Builder.Default
-    private List<OrderItem> items = new ArrayList<>();
-
-    private BigDecimal totalAmount;
-    private OrderStatus status;
-    private Instant createdAt;
-    private Instant updatedAt;
-    private boolean stockAllocated;
-    private String allocationError;
+    @Builder(toBuilder = true)
+    public Order(
+            String id,
+            OrderSource source,
+            String merchantId,
+            String externalId,
+            String customerName,
+            List<OrderItem> items,
+            Currency currency,
+            long totalAmountMinor,
+            OrderStatus status,
+            Instant createdAt,
+            Instant updatedAt,
+            boolean stockAllocated,
+            String allocationError,
+            long version
+    ) {
+        this.id = id;
+        this.source = source;
+        this.merchantId = merchantId;
+        this.externalId = externalId;
+        this.customerName = customerName;
+        this.items = items == null ? List.of() : List.copyOf(items);
+        this.currency = currency == null ? Money.DEFAULT_CURRENCY : currency;
+        this.totalAmountMinor = totalAmountMinor;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.stockAllocated = stockAllocated;
+        this.allocationError = allocationError;
+        this.version = version;
+    }
 }
@@ -0,0 +1,9 @@
+package com.oryzem.backend.modules.orders.domain;
+
+public class OrderConcurrencyException extends IllegalStateException {
+
+    public OrderConcurrencyException(String orderId, long expectedVersion, long currentVersion) {
+        super("Order was modified concurrently: " + orderId
+                + " (expectedVersion=" + expectedVersion + ", currentVersion=" + currentVersion + ")");
+    }
+}
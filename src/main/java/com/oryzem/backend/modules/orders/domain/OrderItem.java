@@ -1,20 +1,15 @@
 package com.oryzem.backend.modules.orders.domain;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-import java.math.BigDecimal;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
 @Builder
 public class OrderItem {
 
-    private String productId;
-    private String nameSnapshot;
-    private int quantity;
-    private BigDecimal unitPrice;
+    String productId;
+    String nameSnapshot;
+    int quantity;
+    /** Unit price in minor units of the owning order's currency. */
+    long unitPriceMinor;
 }
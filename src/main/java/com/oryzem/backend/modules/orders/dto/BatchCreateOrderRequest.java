@@ -0,0 +1,26 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Payload used to create several orders in one request")
+public class BatchCreateOrderRequest {
+
+    @Schema(description = "Orders to create. Each one is validated on its own and reported in the per-order results.")
+    @NotEmpty(message = "orders is required")
+    @Size(max = 500, message = "orders must have at most 500 entries")
+    @Builder.Default
+    private List<CreateOrderRequest> orders = new ArrayList<>();
+}
@@ -0,0 +1,31 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Result of a batch order creation")
+public class BatchCreateOrderResponse {
+
+    @Schema(description = "Number of orders created", example = "48")
+    private int createdCount;
+
+    @Schema(description = "Number of orders that already existed", example = "1")
+    private int duplicateCount;
+
+    @Schema(description = "Number of orders rejected", example = "1")
+    private int failedCount;
+
+    @Schema(description = "Per-order results in request order")
+    @Builder.Default
+    private List<BatchOrderResult> results = new ArrayList<>();
+}
@@ -0,0 +1,7 @@
+package com.oryzem.backend.modules.orders.dto;
+
+public enum BatchOrderOutcome {
+    CREATED,
+    DUPLICATE,
+    ERROR
+}
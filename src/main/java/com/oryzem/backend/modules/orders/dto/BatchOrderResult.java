@@ -0,0 +1,27 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Outcome of a single order inside a batch")
+public class BatchOrderResult {
+
+    @Schema(description = "Zero-based position of the order in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Result of the order", example = "CREATED")
+    private BatchOrderOutcome outcome;
+
+    @Schema(description = "Created or existing order, absent on error")
+    private OrderResponse order;
+
+    @Schema(description = "Error message when the order was rejected", example = "Unknown productId: SKU-404")
+    private String error;
+}
@@ -0,0 +1,43 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Order state change pushed on the order stream")
+public class OrderChangeEvent {
+
+    @Schema(description = "Order identifier", example = "0192f1c4-6d3a-7c1e-9b1f-3a4d5e6f7a8b")
+    private String orderId;
+
+    @Schema(description = "Origin of the order", example = "IFOOD")
+    private OrderSource source;
+
+    @Schema(description = "Merchant or integration account identifier", example = "ifood-store-001")
+    private String merchantId;
+
+    @Schema(description = "External marketplace order identifier", example = "ABC123")
+    private String externalId;
+
+    @Schema(description = "Status after the change", example = "PREPARING")
+    private OrderStatus status;
+
+    @Schema(description = "Whether stock is allocated for the order", example = "true")
+    private boolean stockAllocated;
+
+    @Schema(description = "Order version after the change", example = "3")
+    private long version;
+
+    @Schema(description = "Time of the change", example = "2026-03-06T18:42:10Z")
+    private Instant updatedAt;
+}
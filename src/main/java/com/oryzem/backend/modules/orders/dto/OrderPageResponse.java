@@ -0,0 +1,25 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Page of orders ordered from newest to oldest")
+public class OrderPageResponse {
+
+    @Schema(description = "Orders in this page")
+    @Builder.Default
+    private List<OrderResponse> items = new ArrayList<>();
+
+    @Schema(description = "Opaque cursor for the next page, absent on the last page", example = "MTc3MjgzNTMzMDowOm9yZC0x")
+    private String nextCursor;
+}
@@ -42,6 +42,9 @@ public class OrderResponse {
     @Schema(description = "Total order amount", example = "59.80")
     private BigDecimal totalAmount;
 
+    @Schema(description = "ISO 4217 currency of the amounts", example = "BRL")
+    private String currency;
+
     @Schema(description = "Current order status", example = "CONFIRMED")
     private OrderStatus status;
 
@@ -0,0 +1,33 @@
+package com.oryzem.backend.modules.orders.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Counters of the order location routing index since startup")
+public class OrderRoutingStatsResponse {
+
+    @Schema(description = "Lookups answered by the exact map of recently seen orders", example = "18250")
+    private long exactHits;
+
+    @Schema(description = "Lookups routed to the legacy store by the Bloom filter", example = "412")
+    private long bloomHits;
+
+    @Schema(description = "Bloom filter answers that turned out wrong and needed a second lookup", example = "3")
+    private long falsePositives;
+
+    @Schema(description = "Unknown orders that were probed in both stores", example = "57")
+    private long misses;
+
+    @Schema(description = "Orders currently held in the exact map", example = "18307")
+    private long recentEntries;
+
+    @Schema(description = "Order ids added to the legacy Bloom filter", example = "20544")
+    private long legacyFilterInsertions;
+}
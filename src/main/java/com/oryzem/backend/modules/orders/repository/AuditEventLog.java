@@ -0,0 +1,91 @@
+package com.oryzem.backend.modules.orders.repository;
+
+import com.oryzem.backend.modules.orders.domain.OrderAuditEvent;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of audit events split into fixed chunks. Appends never copy earlier events and
+ * readers iterate without locking; each chunk tracks its time bounds so range scans skip whole chunks.
+ */
+final class AuditEventLog {
+
+    private static final int MAX_CHUNK_CAPACITY = 1024;
+
+    private final List<Chunk> chunks = new CopyOnWriteArrayList<>();
+    private final int initialChunkCapacity;
+    private Chunk tail;
+
+    AuditEventLog(int initialChunkCapacity) {
+        this.initialChunkCapacity = initialChunkCapacity;
+    }
+
+    synchronized void append(OrderAuditEvent event) {
+        if (tail == null || tail.isFull()) {
+            int capacity = tail == null ? initialChunkCapacity : Math.min(tail.events.length * 2, MAX_CHUNK_CAPACITY);
+            tail = new Chunk(capacity);
+            chunks.add(tail);
+        }
+        tail.append(event);
+    }
+
+    Stream<OrderAuditEvent> stream() {
+        return chunks.stream().flatMap(Chunk::stream);
+    }
+
+    /** Events with {@code from <= createdAt < to}; either bound may be null. */
+    Stream<OrderAuditEvent> streamBetween(Instant from, Instant to) {
+        return chunks.stream()
+                .filter(chunk -> chunk.overlaps(from, to))
+                .flatMap(Chunk::stream)
+                .filter(event -> isWithin(event.getCreatedAt(), from, to));
+    }
+
+    private static boolean isWithin(Instant createdAt, Instant from, Instant to) {
+        return (from == null || !createdAt.isBefore(from)) && (to == null || createdAt.isBefore(to));
+    }
+
+    private static final class Chunk {
+
+        private final OrderAuditEvent[] events;
+        private volatile int size;
+        private volatile Instant minCreatedAt;
+        private volatile Instant maxCreatedAt;
+
+        private Chunk(int capacity) {
+            this.events = new OrderAuditEvent[capacity];
+        }
+
+        private boolean isFull() {
+            return size == events.length;
+        }
+
+        // Called under the log lock; the size write publishes the new slot to readers.
+        private void append(OrderAuditEvent event) {
+            Instant createdAt = event.getCreatedAt();
+            if (minCreatedAt == null || createdAt.isBefore(minCreatedAt)) {
+                minCreatedAt = createdAt;
+            }
+            if (maxCreatedAt == null || createdAt.isAfter(maxCreatedAt)) {
+                maxCreatedAt = createdAt;
+            }
+            events[size] = event;
+            size = size + 1;
+        }
+
+        private Stream<OrderAuditEvent> stream() {
+            return Arrays.stream(events, 0, size);
+        }
+
+        private boolean overlaps(Instant from, Instant to) {
+            if (size == 0) {
+                return false;
+            }
+            return (from == null || !maxCreatedAt.isBefore(from)) && (to == null || minCreatedAt.isBefore(to));
+        }
+    }
+}
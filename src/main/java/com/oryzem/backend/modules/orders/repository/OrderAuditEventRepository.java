@@ -4,35 +4,55 @@ import com.oryzem.backend.core.tenant.TenantScope;
 import com.oryzem.backend.modules.orders.domain.OrderAuditEvent;
 import org.springframework.stereotype.Repository;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 @Repository
 public class OrderAuditEventRepository {
 
-    private final ConcurrentMap<String, CopyOnWriteArrayList<OrderAuditEvent>> eventsByTenant = new ConcurrentHashMap<>();
+    private static final int ORDER_LOG_INITIAL_CHUNK = 4;
+    private static final int TENANT_LOG_INITIAL_CHUNK = 256;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, AuditEventLog>> logsByTenantAndOrderId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AuditEventLog> logsByTenant = new ConcurrentHashMap<>();
 
     public OrderAuditEvent save(OrderAuditEvent event) {
+        String tenantScope = TenantScope.current();
         OrderAuditEvent copy = copy(event);
-        tenantEvents(TenantScope.current()).add(copy);
+        if (copy.getCreatedAt() == null) {
+            copy.setCreatedAt(Instant.now());
+        }
+        tenantOrderLogs(tenantScope)
+                .computeIfAbsent(copy.getOrderId(), ignored -> new AuditEventLog(ORDER_LOG_INITIAL_CHUNK))
+                .append(copy);
+        tenantLog(tenantScope).append(copy);
         return copy(copy);
     }
 
     public List<OrderAuditEvent> findByOrderId(String orderId) {
-        List<OrderAuditEvent> result = new ArrayList<>();
-        for (OrderAuditEvent event : tenantEvents(TenantScope.current())) {
-            if (orderId.equals(event.getOrderId())) {
-                result.add(copy(event));
-            }
+        AuditEventLog log = tenantOrderLogs(TenantScope.current()).get(orderId);
+        if (log == null) {
+            return List.of();
         }
-        return result;
+        return log.stream().map(this::copy).toList();
+    }
+
+    /**
+     * Streams the tenant's events created in {@code [from, to)} in append order. Either bound may be null.
+     */
+    public Stream<OrderAuditEvent> streamByCreatedAtBetween(Instant from, Instant to) {
+        return tenantLog(TenantScope.current()).streamBetween(from, to).map(this::copy);
+    }
+
+    private ConcurrentMap<String, AuditEventLog> tenantOrderLogs(String tenantScope) {
+        return logsByTenantAndOrderId.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
     }
 
-    private CopyOnWriteArrayList<OrderAuditEvent> tenantEvents(String tenantScope) {
-        return eventsByTenant.computeIfAbsent(tenantScope, ignored -> new CopyOnWriteArrayList<>());
+    private AuditEventLog tenantLog(String tenantScope) {
+        return logsByTenant.computeIfAbsent(tenantScope, ignored -> new AuditEventLog(TENANT_LOG_INITIAL_CHUNK));
     }
 
     private OrderAuditEvent copy(OrderAuditEvent event) {
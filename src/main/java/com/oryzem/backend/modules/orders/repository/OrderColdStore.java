@@ -0,0 +1,384 @@
+package com.oryzem.backend.modules.orders.repository;
+
+import com.oryzem.backend.core.persistence.PersistenceProperties;
+import com.oryzem.backend.core.persistence.RecordCodec;
+import com.oryzem.backend.modules.orders.config.OrderArchiveProperties;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold tier for orders that reached a terminal status long ago. Orders are appended to a single
+ * file in Deflate-compressed blocks; only a small per-order index entry (the fields the hot
+ * indexes need plus the block location) stays on the heap. Reads decompress the whole block and
+ * keep the last few decoded blocks, since listings tend to walk neighbouring orders.
+ *
+ * <p>Block layout: {@code [magic][headerLength][headerCrc][compressedLength][rawLength][payloadCrc]},
+ * then the header (tenant and the index entry of every order) and the compressed order records.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.orders.archive", name = "enabled", havingValue = "true")
+@Slf4j
+public class OrderColdStore {
+
+    private static final String FILE_NAME = "orders-archive.bin";
+    private static final int BLOCK_MAGIC = 0x4F415243;
+    private static final int BLOCK_PREFIX_BYTES = 6 * Integer.BYTES;
+    private static final int MAX_SECTION_BYTES = 64 * 1024 * 1024;
+    private static final int CACHED_BLOCKS = 8;
+
+    private final Path file;
+    private final int blockSize;
+    private final FileChannel channel;
+    private final ConcurrentMap<String, ConcurrentMap<String, ArchivedOrder>> indexByTenant = new ConcurrentHashMap<>();
+    // Guarded by itself; access-ordered so the eldest entry is the least recently read block.
+    private final Map<Block, Map<String, Order>> decodedBlocks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Block, Map<String, Order>> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    // Guarded by this.
+    private long size;
+
+    public OrderColdStore(OrderArchiveProperties properties, PersistenceProperties persistenceProperties) {
+        this.file = Path.of(properties.directory()).resolve(FILE_NAME);
+        this.blockSize = properties.blockSize();
+        try {
+            Files.createDirectories(file.getParent());
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (persistenceProperties.enabled()) {
+                this.size = loadIndex();
+            } else {
+                // Without persistence the hot orders do not survive a restart, so neither may the archive.
+                channel.truncate(0);
+                this.size = 0;
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to open order archive " + file, ex);
+        }
+    }
+
+    int blockSize() {
+        return blockSize;
+    }
+
+    Optional<Order> find(String tenantScope, String orderId) {
+        ConcurrentMap<String, ArchivedOrder> index = indexByTenant.get(tenantScope);
+        ArchivedOrder archived = index == null ? null : index.get(orderId);
+        if (archived == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(decode(archived.block()).get(orderId));
+    }
+
+    /** Whether the order is archived, answered from the index without reading its block. */
+    boolean contains(String tenantScope, String orderId) {
+        ConcurrentMap<String, ArchivedOrder> index = indexByTenant.get(tenantScope);
+        return index != null && index.containsKey(orderId);
+    }
+
+    /**
+     * Writes the orders as one durable block and indexes them. The caller drops the hot copies
+     * afterwards, so the block must be on disk before this returns.
+     */
+    void archive(String tenantScope, List<Order> orders) throws IOException {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        ByteArrayOutputStream rawBytes = new ByteArrayOutputStream(orders.size() * 256);
+        DataOutputStream raw = new DataOutputStream(rawBytes);
+        header.writeUTF(tenantScope);
+        header.writeInt(orders.size());
+        for (Order order : orders) {
+            header.writeUTF(order.getId());
+            RecordCodec.writeInstant(header, order.getCreatedAt());
+            RecordCodec.writeEnum(header, order.getStatus());
+            RecordCodec.writeString(header, order.getMerchantId());
+            RecordCodec.writeEnum(header, order.getSource());
+            RecordCodec.writeString(header, order.getExternalId());
+            OrderRecordCodec.write(raw, order);
+        }
+        byte[] headerSection = headerBytes.toByteArray();
+        byte[] payload = rawBytes.toByteArray();
+        byte[] compressed = compress(payload);
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_PREFIX_BYTES + headerSection.length + compressed.length);
+        block.putInt(BLOCK_MAGIC)
+                .putInt(headerSection.length)
+                .putInt(checksum(headerSection, headerSection.length))
+                .putInt(compressed.length)
+                .putInt(payload.length)
+                .putInt(checksum(compressed, compressed.length))
+                .put(headerSection)
+                .put(compressed)
+                .flip();
+
+        long payloadOffset;
+        synchronized (this) {
+            long position = size;
+            while (block.hasRemaining()) {
+                position += channel.write(block, position);
+            }
+            channel.force(false);
+            payloadOffset = size + BLOCK_PREFIX_BYTES + headerSection.length;
+            size = position;
+        }
+
+        Block location = new Block(payloadOffset, compressed.length, payload.length, checksum(compressed, compressed.length));
+        ConcurrentMap<String, ArchivedOrder> index = tenantIndex(tenantScope);
+        for (Order order : orders) {
+            index.put(order.getId(), new ArchivedOrder(
+                    order.getId(),
+                    order.getCreatedAt(),
+                    order.getStatus(),
+                    order.getMerchantId(),
+                    order.getSource(),
+                    order.getExternalId(),
+                    location
+            ));
+        }
+    }
+
+    /**
+     * Drops the index entry of an order that is live again. The block itself stays in the file.
+     */
+    void forget(String tenantScope, String orderId) {
+        ConcurrentMap<String, ArchivedOrder> index = indexByTenant.get(tenantScope);
+        if (index != null) {
+            index.remove(orderId);
+        }
+    }
+
+    void forEachArchived(BiConsumer<String, ArchivedOrder> consumer) {
+        indexByTenant.forEach((tenantScope, index) -> index.values().forEach(archived -> consumer.accept(tenantScope, archived)));
+    }
+
+    public long archivedCount() {
+        return indexByTenant.values().stream().mapToLong(Map::size).sum();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Rebuilds the index from the block headers; later blocks win, as an order archived again
+     * after being reopened is appended anew. A torn last block is truncated away.
+     */
+    private long loadIndex() throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        long blocks = 0;
+        String problem = null;
+        ByteBuffer prefix = ByteBuffer.allocate(BLOCK_PREFIX_BYTES);
+        while (position < fileSize) {
+            if (fileSize - position < BLOCK_PREFIX_BYTES) {
+                problem = "truncated block prefix";
+                break;
+            }
+            readFully(prefix.clear(), position);
+            prefix.flip();
+            int magic = prefix.getInt();
+            int headerLength = prefix.getInt();
+            int headerCrc = prefix.getInt();
+            int compressedLength = prefix.getInt();
+            int rawLength = prefix.getInt();
+            int payloadCrc = prefix.getInt();
+            long payloadOffset = position + BLOCK_PREFIX_BYTES + headerLength;
+            if (magic != BLOCK_MAGIC
+                    || headerLength <= 0 || headerLength > MAX_SECTION_BYTES
+                    || compressedLength <= 0 || compressedLength > MAX_SECTION_BYTES
+                    || rawLength <= 0
+                    || payloadOffset + compressedLength > fileSize) {
+                problem = "invalid block prefix";
+                break;
+            }
+
+            byte[] headerSection = new byte[headerLength];
+            readFully(ByteBuffer.wrap(headerSection), position + BLOCK_PREFIX_BYTES);
+            if (checksum(headerSection, headerLength) != headerCrc) {
+                problem = "header checksum mismatch";
+                break;
+            }
+
+            Block location = new Block(payloadOffset, compressedLength, rawLength, payloadCrc);
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(headerSection));
+            ConcurrentMap<String, ArchivedOrder> index = tenantIndex(header.readUTF());
+            int count = header.readInt();
+            for (int i = 0; i < count; i++) {
+                String orderId = header.readUTF();
+                index.put(orderId, new ArchivedOrder(
+                        orderId,
+                        RecordCodec.readInstant(header),
+                        RecordCodec.readEnum(header, OrderStatus.class),
+                        RecordCodec.readString(header),
+                        RecordCodec.readEnum(header, OrderSource.class),
+                        RecordCodec.readString(header),
+                        location
+                ));
+            }
+            position = payloadOffset + compressedLength;
+            blocks++;
+        }
+
+        if (problem != null) {
+            log.warn("Truncating torn tail of {} at offset {} ({})", file.getFileName(), position, problem);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        if (blocks > 0) {
+            log.info("Loaded order archive index: {} orders in {} blocks", archivedCount(), blocks);
+        }
+        return position;
+    }
+
+    private Map<String, Order> decode(Block block) {
+        synchronized (decodedBlocks) {
+            Map<String, Order> cached = decodedBlocks.get(block);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Map<String, Order> orders = new HashMap<>();
+        try {
+            byte[] compressed = new byte[block.compressedLength()];
+            readFully(ByteBuffer.wrap(compressed), block.payloadOffset());
+            if (checksum(compressed, compressed.length) != block.payloadCrc()) {
+                throw new IOException("Checksum mismatch in archived block at offset " + block.payloadOffset());
+            }
+            byte[] payload = decompress(compressed, block.rawLength());
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+            while (input.available() > 0) {
+                Order order = OrderRecordCodec.read(input);
+                orders.put(order.getId(), order);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read archived orders from " + file, ex);
+        }
+
+        synchronized (decodedBlocks) {
+            decodedBlocks.put(block, orders);
+        }
+        return orders;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    private ConcurrentMap<String, ArchivedOrder> tenantIndex(String tenantScope) {
+        return indexByTenant.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    }
+
+    private static byte[] compress(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, payload.length / 3));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] payload = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(payload, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new IOException("Archived block inflated to " + length + " bytes, expected " + rawLength);
+            }
+            return payload;
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt archived block", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /** Heap-resident index entry of an archived order. */
+    record ArchivedOrder(
+            String orderId,
+            Instant createdAt,
+            OrderStatus status,
+            String merchantId,
+            OrderSource source,
+            String externalId,
+            Block block
+    ) {
+        /** Key-only order carrying just the fields the repository indexes read. */
+        Order toIndexKey() {
+            return Order.builder()
+                    .id(orderId)
+                    .createdAt(createdAt)
+                    .status(status)
+                    .merchantId(merchantId)
+                    .source(source)
+                    .externalId(externalId)
+                    .build();
+        }
+    }
+
+    record Block(long payloadOffset, int compressedLength, int rawLength, int payloadCrc) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.oryzem.backend.modules.orders.repository;
+
+import java.time.Instant;
+
+public record OrderCursor(Instant createdAt, String orderId) implements Comparable<OrderCursor> {
+
+    public static OrderCursor lowerBound(Instant createdAt) {
+        return new OrderCursor(createdAt, "");
+    }
+
+    @Override
+    public int compareTo(OrderCursor other) {
+        int byCreatedAt = createdAt.compareTo(other.createdAt);
+        return byCreatedAt != 0 ? byCreatedAt : orderId.compareTo(other.orderId);
+    }
+}
@@ -0,0 +1,123 @@
+package com.oryzem.backend.modules.orders.repository;
+
+import com.oryzem.backend.core.persistence.RecordCodec;
+import com.oryzem.backend.modules.orders.domain.Money;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary order format shared by the write-ahead log and the cold tier. The log also carries
+ * archived records, which list the orders moved to the cold tier.
+ */
+final class OrderRecordCodec {
+
+    private static final int DECIMAL_RECORD_FORMAT = 1;
+    private static final int RECORD_FORMAT = 2;
+    static final int ARCHIVED_RECORD_FORMAT = 3;
+
+    private OrderRecordCodec() {
+    }
+
+    static void write(DataOutput output, Order order) throws IOException {
+        output.writeByte(RECORD_FORMAT);
+        output.writeUTF(order.getId());
+        RecordCodec.writeEnum(output, order.getSource());
+        RecordCodec.writeString(output, order.getMerchantId());
+        RecordCodec.writeString(output, order.getExternalId());
+        RecordCodec.writeString(output, order.getCustomerName());
+        output.writeUTF(order.getCurrency().getCurrencyCode());
+        output.writeInt(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            RecordCodec.writeString(output, item.getProductId());
+            RecordCodec.writeString(output, item.getNameSnapshot());
+            output.writeInt(item.getQuantity());
+            output.writeLong(item.getUnitPriceMinor());
+        }
+        output.writeLong(order.getTotalAmountMinor());
+        RecordCodec.writeEnum(output, order.getStatus());
+        RecordCodec.writeInstant(output, order.getCreatedAt());
+        RecordCodec.writeInstant(output, order.getUpdatedAt());
+        output.writeBoolean(order.isStockAllocated());
+        RecordCodec.writeString(output, order.getAllocationError());
+        output.writeLong(order.getVersion());
+    }
+
+    /** Writes the ids and versions of orders that left the hot tier. */
+    static void writeArchived(DataOutput output, List<Order> orders) throws IOException {
+        output.writeByte(ARCHIVED_RECORD_FORMAT);
+        output.writeInt(orders.size());
+        for (Order order : orders) {
+            output.writeUTF(order.getId());
+            output.writeLong(order.getVersion());
+        }
+    }
+
+    /** Reads the body of an archived record, after its format byte: archived version by order id. */
+    static Map<String, Long> readArchived(DataInput input) throws IOException {
+        int count = input.readInt();
+        Map<String, Long> versions = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            versions.put(input.readUTF(), input.readLong());
+        }
+        return versions;
+    }
+
+    static Order read(DataInput input) throws IOException {
+        return read(input, input.readByte());
+    }
+
+    /** Reads the body of an order record whose format byte was already consumed. */
+    static Order read(DataInput input, int format) throws IOException {
+        if (format != RECORD_FORMAT && format != DECIMAL_RECORD_FORMAT) {
+            throw new IOException("Unsupported order record format " + format);
+        }
+        boolean decimalAmounts = format == DECIMAL_RECORD_FORMAT;
+        Order.OrderBuilder builder = Order.builder()
+                .id(input.readUTF())
+                .source(RecordCodec.readEnum(input, OrderSource.class))
+                .merchantId(RecordCodec.readString(input))
+                .externalId(RecordCodec.readString(input))
+                .customerName(RecordCodec.readString(input));
+        Currency currency = decimalAmounts ? Money.DEFAULT_CURRENCY : Currency.getInstance(input.readUTF());
+        int itemCount = input.readInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(OrderItem.builder()
+                    .productId(RecordCodec.readString(input))
+                    .nameSnapshot(RecordCodec.readString(input))
+                    .quantity(input.readInt())
+                    .unitPriceMinor(readAmount(input, decimalAmounts, currency))
+                    .build());
+        }
+        return builder.items(items)
+                .currency(currency)
+                .totalAmountMinor(readAmount(input, decimalAmounts, currency))
+                .status(RecordCodec.readEnum(input, OrderStatus.class))
+                .createdAt(RecordCodec.readInstant(input))
+                .updatedAt(RecordCodec.readInstant(input))
+                .stockAllocated(input.readBoolean())
+                .allocationError(RecordCodec.readString(input))
+                .version(input.readLong())
+                .build();
+    }
+
+    private static long readAmount(DataInput input, boolean decimalAmounts, Currency currency) throws IOException {
+        if (!decimalAmounts) {
+            return input.readLong();
+        }
+        BigDecimal amount = RecordCodec.readDecimal(input);
+        return amount == null ? 0 : Money.toMinorUnits(amount, currency);
+    }
+}
@@ -1,45 +1,122 @@
 package com.oryzem.backend.modules.orders.repository;
 
+import com.oryzem.backend.core.persistence.DurableStore;
+import com.oryzem.backend.core.persistence.WriteAheadLog;
 import com.oryzem.backend.core.tenant.TenantScope;
 import com.oryzem.backend.modules.orders.domain.Order;
-import com.oryzem.backend.modules.orders.domain.OrderItem;
+import com.oryzem.backend.modules.orders.domain.OrderConcurrencyException;
 import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Repository
-public class OrderRepository {
+public class OrderRepository implements DurableStore {
+
+    private static final Duration EXTERNAL_KEY_WAIT = Duration.ofSeconds(5);
+    private static final Set<OrderStatus> TERMINAL_STATUSES = Set.of(OrderStatus.COMPLETED, OrderStatus.CANCELED);
 
     private final ConcurrentMap<String, ConcurrentMap<String, Order>> ordersByTenantAndId = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, ConcurrentMap<String, String>> orderIdsByTenantAndExternalKey = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, ExternalKeyEntry>> externalKeysByTenant = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, NavigableSet<OrderCursor>> orderKeysByTenant = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<OrderStatus, NavigableSet<OrderCursor>>> orderKeysByTenantAndStatus = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, NavigableSet<OrderCursor>>> orderKeysByTenantAndMerchant = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+    private OrderColdStore coldStore;
+
+    /**
+     * Enables the cold tier and indexes the orders it already holds, so archived orders keep
+     * showing up in lookups and listings after a restart.
+     */
+    @Autowired(required = false)
+    public void setColdStore(OrderColdStore coldStore) {
+        this.coldStore = coldStore;
+        coldStore.forEachArchived((tenantScope, archived) -> {
+            if (!tenantOrders(tenantScope).containsKey(archived.orderId())) {
+                Order key = archived.toIndexKey();
+                reindex(tenantScope, null, key);
+                indexExternalKey(tenantScope, key);
+            }
+        });
+    }
 
-    public synchronized Order save(Order order) {
+    public Order save(Order order) {
         String tenantScope = TenantScope.current();
         ConcurrentMap<String, Order> ordersById = tenantOrders(tenantScope);
-        ConcurrentMap<String, String> orderIdByExternalKey = tenantOrderIdsByExternalKey(tenantScope);
-        Order copy = copy(order);
-        ordersById.put(copy.getId(), copy);
-
-        if (copy.getSource() != OrderSource.INTERNAL
-                && copy.getMerchantId() != null
-                && !copy.getMerchantId().isBlank()
-                && copy.getExternalId() != null
-                && !copy.getExternalId().isBlank()) {
-            orderIdByExternalKey.put(
-                    buildExternalKey(copy.getSource(), copy.getMerchantId(), copy.getExternalId()),
-                    copy.getId()
-            );
+        long[] journalSequence = {0};
+        boolean[] rehydrated = {false};
+        boolean[] archivedMeanwhile = {false};
+        Order[] archived = {null};
+        Supplier<Order> install = () -> ordersById.compute(order.getId(), (orderId, current) -> {
+            Order previous = current;
+            if (previous == null && order.getVersion() > 0 && coldStore != null) {
+                // Writing to an archived order brings it back into the hot tier. If it was archived
+                // after the hot map was checked, load its archived copy and try again.
+                if (archived[0] == null && coldStore.contains(tenantScope, orderId)) {
+                    archivedMeanwhile[0] = true;
+                    return null;
+                }
+                previous = archived[0];
+                rehydrated[0] = previous != null;
+            }
+            long currentVersion = previous == null ? 0L : previous.getVersion();
+            if (order.getVersion() != currentVersion) {
+                throw new OrderConcurrencyException(orderId, order.getVersion(), currentVersion);
+            }
+            Order next = order.toBuilder().version(currentVersion + 1).build();
+            // Indexes are updated under the per-order bin lock so that concurrent
+            // saves of the same order cannot leave it indexed under a stale status.
+            reindex(tenantScope, previous, next);
+            if (writeAheadLog != null) {
+                journalSequence[0] = writeAheadLog.append(this, tenantScope, output -> OrderRecordCodec.write(output, next));
+            }
+            return next;
+        });
+        Order stored;
+        do {
+            // The archived copy is read before taking the order's bin lock, which must not wait on disk.
+            archivedMeanwhile[0] = false;
+            archived[0] = order.getVersion() > 0 && coldStore != null && !ordersById.containsKey(order.getId())
+                    ? coldStore.find(tenantScope, order.getId()).orElse(null)
+                    : null;
+            stored = writeAheadLog == null ? install.get() : writeAheadLog.journaled(install);
+        } while (archivedMeanwhile[0]);
+
+        if (rehydrated[0]) {
+            coldStore.forget(tenantScope, stored.getId());
+        }
+        indexExternalKey(tenantScope, stored);
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(journalSequence[0]);
         }
-        return copy(copy);
+        return stored;
     }
 
     public Optional<Order> findById(String orderId) {
-        return Optional.ofNullable(tenantOrders(TenantScope.current()).get(orderId)).map(this::copy);
+        String tenantScope = TenantScope.current();
+        return Optional.ofNullable(find(tenantScope, tenantOrders(tenantScope), orderId));
     }
 
     public Optional<Order> findByExternalId(OrderSource source, String merchantId, String externalId) {
@@ -47,56 +124,335 @@ public class OrderRepository {
             return Optional.empty();
         }
 
-        String orderId = tenantOrderIdsByExternalKey(TenantScope.current()).get(buildExternalKey(source, merchantId, externalId));
-        if (orderId == null) {
+        ExternalKeyEntry entry = tenantExternalKeys(TenantScope.current()).get(buildExternalKey(source, merchantId, externalId));
+        if (!(entry instanceof CommittedExternalKey committed)) {
             return Optional.empty();
         }
-        return findById(orderId);
+        return findById(committed.orderId());
     }
 
+    /**
+     * Atomically claims the external key for {@code orderId}. Returns empty when the caller won the
+     * claim and must now save the order (or {@link #releaseExternalKey release} it on failure);
+     * otherwise returns the order that holds the key, waiting briefly if it is still being created.
+     */
+    public Optional<Order> reserveExternalKey(OrderSource source, String merchantId, String externalId, String orderId) {
+        String tenantScope = TenantScope.current();
+        ConcurrentMap<String, ExternalKeyEntry> externalKeys = tenantExternalKeys(tenantScope);
+        String externalKey = buildExternalKey(source, merchantId, externalId);
+        long deadline = System.nanoTime() + EXTERNAL_KEY_WAIT.toNanos();
+
+        while (true) {
+            PendingExternalKey claim = new PendingExternalKey(orderId, new CompletableFuture<>());
+            ExternalKeyEntry current = externalKeys.putIfAbsent(externalKey, claim);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (current instanceof CommittedExternalKey committed) {
+                Order existing = find(tenantScope, tenantOrders(tenantScope), committed.orderId());
+                if (existing != null) {
+                    return Optional.of(existing);
+                }
+                if (externalKeys.replace(externalKey, current, claim)) {
+                    return Optional.empty();
+                }
+                continue;
+            }
+
+            PendingExternalKey pending = (PendingExternalKey) current;
+            if (pending.orderId().equals(orderId)) {
+                return Optional.empty();
+            }
+            try {
+                pending.settled().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                throw new IllegalStateException("Order creation already in progress for external id: " + externalId);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for order creation: " + externalId);
+            } catch (ExecutionException ex) {
+                // settled futures never complete exceptionally
+            }
+        }
+    }
+
+    /**
+     * Drops a claim taken with {@link #reserveExternalKey} whose order was never saved, letting
+     * waiting callers retry.
+     */
+    public void releaseExternalKey(OrderSource source, String merchantId, String externalId, String orderId) {
+        ConcurrentMap<String, ExternalKeyEntry> externalKeys = tenantExternalKeys(TenantScope.current());
+        String externalKey = buildExternalKey(source, merchantId, externalId);
+        ExternalKeyEntry current = externalKeys.get(externalKey);
+        if (current instanceof PendingExternalKey pending
+                && pending.orderId().equals(orderId)
+                && externalKeys.remove(externalKey, pending)) {
+            pending.settled().complete(null);
+        }
+    }
+
+    /**
+     * Returns the orders of the hot tier; archived orders are reachable through the lookups and
+     * {@link #search} only.
+     */
     public List<Order> findAll() {
-        List<Order> orders = new ArrayList<>();
-        for (Order order : tenantOrders(TenantScope.current()).values()) {
-            orders.add(copy(order));
+        return new ArrayList<>(tenantOrders(TenantScope.current()).values());
+    }
+
+    /**
+     * Returns up to {@code limit} orders matching the criteria, newest first, strictly older than
+     * {@code before} when a cursor is given. Walks the most selective index instead of the whole tenant.
+     */
+    public List<Order> search(OrderSearchCriteria criteria, OrderCursor before, int limit) {
+        String tenantScope = TenantScope.current();
+        ConcurrentMap<String, Order> ordersById = tenantOrders(tenantScope);
+        NavigableSet<OrderCursor> index = selectIndex(tenantScope, criteria);
+
+        List<Order> orders = new ArrayList<>(Math.min(limit, 256));
+        if (index == null || limit <= 0) {
+            return orders;
+        }
+
+        for (OrderCursor key : range(index, criteria, before)) {
+            Order order = find(tenantScope, ordersById, key.orderId());
+            // The index may briefly lag a concurrent save, so re-check the stored order.
+            if (order == null
+                    || !order.getCreatedAt().equals(key.createdAt())
+                    || !criteria.matches(order.getStatus(), order.getMerchantId(), order.getCreatedAt())) {
+                continue;
+            }
+            orders.add(order);
+            if (orders.size() == limit) {
+                break;
+            }
         }
         return orders;
     }
 
+    /**
+     * Moves COMPLETED and CANCELED orders created and last updated before {@code cutoff} from the
+     * heap into the cold tier, across all tenants. Their index keys stay in place. Returns the
+     * number of orders archived.
+     */
+    public int archiveTerminalOrders(Instant cutoff) {
+        if (coldStore == null) {
+            return 0;
+        }
+
+        int archived = 0;
+        OrderCursor upper = OrderCursor.lowerBound(cutoff);
+        for (String tenantScope : ordersByTenantAndId.keySet()) {
+            ConcurrentMap<String, Order> ordersById = tenantOrders(tenantScope);
+            List<Order> block = new ArrayList<>(coldStore.blockSize());
+            for (OrderStatus status : TERMINAL_STATUSES) {
+                NavigableSet<OrderCursor> index = tenantOrderKeysByStatus(tenantScope).get(status);
+                if (index == null) {
+                    continue;
+                }
+                for (OrderCursor key : index.headSet(upper, false)) {
+                    Order order = ordersById.get(key.orderId());
+                    if (order == null || order.getStatus() != status || !lastChange(order).isBefore(cutoff)) {
+                        continue;
+                    }
+                    block.add(order);
+                    if (block.size() == coldStore.blockSize()) {
+                        archived += moveToColdTier(tenantScope, ordersById, block);
+                        block.clear();
+                    }
+                }
+            }
+            archived += moveToColdTier(tenantScope, ordersById, block);
+        }
+        return archived;
+    }
+
+    @Override
+    public String storeName() {
+        return "orders";
+    }
+
+    @Override
+    public void writeSnapshot(SnapshotSink sink) throws IOException {
+        for (Map.Entry<String, ConcurrentMap<String, Order>> tenant : ordersByTenantAndId.entrySet()) {
+            for (Order order : tenant.getValue().values()) {
+                sink.write(tenant.getKey(), output -> OrderRecordCodec.write(output, order));
+            }
+        }
+    }
+
+    @Override
+    public void apply(String tenantScope, DataInput input) throws IOException {
+        int format = input.readByte();
+        if (format == OrderRecordCodec.ARCHIVED_RECORD_FORMAT) {
+            // The cold tier already holds these orders; drop the hot copies replayed before the move.
+            ConcurrentMap<String, Order> ordersById = tenantOrders(tenantScope);
+            OrderRecordCodec.readArchived(input).forEach((orderId, version) ->
+                    ordersById.computeIfPresent(orderId, (id, current) -> current.getVersion() <= version ? null : current));
+            return;
+        }
+        Order order = OrderRecordCodec.read(input, format);
+        Order stored = tenantOrders(tenantScope).compute(order.getId(), (orderId, current) -> {
+            if (current != null && current.getVersion() >= order.getVersion()) {
+                return current;
+            }
+            reindex(tenantScope, current, order);
+            return order;
+        });
+        indexExternalKey(tenantScope, stored);
+    }
+
+    private Order find(String tenantScope, ConcurrentMap<String, Order> ordersById, String orderId) {
+        Order order = ordersById.get(orderId);
+        if (order != null || coldStore == null) {
+            return order;
+        }
+        Optional<Order> archived = coldStore.find(tenantScope, orderId);
+        // A concurrent save may have brought the order back into the hot tier in between.
+        return archived.isPresent() ? archived.get() : ordersById.get(orderId);
+    }
+
+    private int moveToColdTier(String tenantScope, ConcurrentMap<String, Order> ordersById, List<Order> orders) {
+        if (orders.isEmpty()) {
+            return 0;
+        }
+        try {
+            coldStore.archive(tenantScope, orders);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to archive orders of tenant " + tenantScope, ex);
+        }
+
+        List<Order> moved = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            if (ordersById.remove(order.getId(), order)) {
+                moved.add(order);
+            } else {
+                // Saved again while being archived: the hot copy is newer, so drop the archived one.
+                coldStore.forget(tenantScope, order.getId());
+            }
+        }
+        if (writeAheadLog != null && !moved.isEmpty()) {
+            // Journal the move so that replaying earlier saves does not bring these orders back
+            // into the hot tier. They are already gone from the heap, so no snapshot can revive them.
+            long journalSequence = writeAheadLog.append(this, tenantScope, output -> OrderRecordCodec.writeArchived(output, moved));
+            writeAheadLog.awaitDurable(journalSequence);
+        }
+        return moved.size();
+    }
+
+    private static Instant lastChange(Order order) {
+        return order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt();
+    }
+
+    private void indexExternalKey(String tenantScope, Order order) {
+        if (order.getSource() != OrderSource.INTERNAL
+                && order.getMerchantId() != null
+                && !order.getMerchantId().isBlank()
+                && order.getExternalId() != null
+                && !order.getExternalId().isBlank()) {
+            ExternalKeyEntry previous = tenantExternalKeys(tenantScope).put(
+                    buildExternalKey(order.getSource(), order.getMerchantId(), order.getExternalId()),
+                    new CommittedExternalKey(order.getId())
+            );
+            if (previous instanceof PendingExternalKey pending) {
+                pending.settled().complete(null);
+            }
+        }
+    }
+
+    private NavigableSet<OrderCursor> selectIndex(String tenantScope, OrderSearchCriteria criteria) {
+        if (criteria.merchantId() != null) {
+            return tenantOrderKeysByMerchant(tenantScope).get(criteria.merchantId());
+        }
+        if (criteria.status() != null) {
+            return tenantOrderKeysByStatus(tenantScope).get(criteria.status());
+        }
+        return tenantOrderKeys(tenantScope);
+    }
+
+    private NavigableSet<OrderCursor> range(NavigableSet<OrderCursor> index, OrderSearchCriteria criteria, OrderCursor before) {
+        OrderCursor upper = criteria.to() == null ? null : OrderCursor.lowerBound(criteria.to());
+        if (before != null && (upper == null || before.compareTo(upper) < 0)) {
+            upper = before;
+        }
+        OrderCursor lower = criteria.from() == null ? null : OrderCursor.lowerBound(criteria.from());
+
+        NavigableSet<OrderCursor> view = index;
+        if (lower != null && upper != null) {
+            if (lower.compareTo(upper) >= 0) {
+                return new ConcurrentSkipListSet<>();
+            }
+            view = index.subSet(lower, true, upper, false);
+        } else if (lower != null) {
+            view = index.tailSet(lower, true);
+        } else if (upper != null) {
+            view = index.headSet(upper, false);
+        }
+        return view.descendingSet();
+    }
+
+    private void reindex(String tenantScope, Order previous, Order current) {
+        OrderCursor previousKey = previous == null ? null : new OrderCursor(previous.getCreatedAt(), previous.getId());
+        OrderCursor currentKey = new OrderCursor(current.getCreatedAt(), current.getId());
+        boolean keyChanged = !currentKey.equals(previousKey);
+
+        if (keyChanged) {
+            NavigableSet<OrderCursor> orderKeys = tenantOrderKeys(tenantScope);
+            if (previousKey != null) {
+                orderKeys.remove(previousKey);
+            }
+            orderKeys.add(currentKey);
+        }
+
+        ConcurrentMap<OrderStatus, NavigableSet<OrderCursor>> byStatus = tenantOrderKeysByStatus(tenantScope);
+        if (previous != null && (keyChanged || previous.getStatus() != current.getStatus()) && previous.getStatus() != null) {
+            byStatus.get(previous.getStatus()).remove(previousKey);
+        }
+        if (current.getStatus() != null) {
+            byStatus.computeIfAbsent(current.getStatus(), ignored -> new ConcurrentSkipListSet<>()).add(currentKey);
+        }
+
+        ConcurrentMap<String, NavigableSet<OrderCursor>> byMerchant = tenantOrderKeysByMerchant(tenantScope);
+        if (previous != null
+                && previous.getMerchantId() != null
+                && (keyChanged || !Objects.equals(previous.getMerchantId(), current.getMerchantId()))) {
+            byMerchant.get(previous.getMerchantId()).remove(previousKey);
+        }
+        if (current.getMerchantId() != null) {
+            byMerchant.computeIfAbsent(current.getMerchantId(), ignored -> new ConcurrentSkipListSet<>()).add(currentKey);
+        }
+    }
+
     private ConcurrentMap<String, Order> tenantOrders(String tenantScope) {
         return ordersByTenantAndId.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
     }
 
-    private ConcurrentMap<String, String> tenantOrderIdsByExternalKey(String tenantScope) {
-        return orderIdsByTenantAndExternalKey.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    private ConcurrentMap<String, ExternalKeyEntry> tenantExternalKeys(String tenantScope) {
+        return externalKeysByTenant.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    }
+
+    private NavigableSet<OrderCursor> tenantOrderKeys(String tenantScope) {
+        return orderKeysByTenant.computeIfAbsent(tenantScope, ignored -> new ConcurrentSkipListSet<>());
+    }
+
+    private ConcurrentMap<OrderStatus, NavigableSet<OrderCursor>> tenantOrderKeysByStatus(String tenantScope) {
+        return orderKeysByTenantAndStatus.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
+    }
+
+    private ConcurrentMap<String, NavigableSet<OrderCursor>> tenantOrderKeysByMerchant(String tenantScope) {
+        return orderKeysByTenantAndMerchant.computeIfAbsent(tenantScope, ignored -> new ConcurrentHashMap<>());
     }
 
     private String buildExternalKey(OrderSource source, String merchantId, String externalId) {
         return source.name() + "::" + merchantId.trim() + "::" + externalId.trim();
     }
 
-    private Order copy(Order order) {
-        List<OrderItem> copiedItems = order.getItems().stream()
-                .map(item -> OrderItem.builder()
-                        .productId(item.getProductId())
-                        .nameSnapshot(item.getNameSnapshot())
-                        .quantity(item.getQuantity())
-                        .unitPrice(item.getUnitPrice())
-                        .build())
-                .toList();
-
-        return Order.builder()
-                .id(order.getId())
-                .source(order.getSource())
-                .merchantId(order.getMerchantId())
-                .externalId(order.getExternalId())
-                .customerName(order.getCustomerName())
-                .items(copiedItems)
-                .totalAmount(order.getTotalAmount())
-                .status(order.getStatus())
-                .createdAt(order.getCreatedAt())
-                .updatedAt(order.getUpdatedAt())
-                .stockAllocated(order.isStockAllocated())
-                .allocationError(order.getAllocationError())
-                .build();
+    private sealed interface ExternalKeyEntry permits PendingExternalKey, CommittedExternalKey {
+    }
+
+    /** Placeholder held while the claiming request builds and saves its order. */
+    private record PendingExternalKey(String orderId, CompletableFuture<Void> settled) implements ExternalKeyEntry {
+    }
+
+    private record CommittedExternalKey(String orderId) implements ExternalKeyEntry {
     }
 }
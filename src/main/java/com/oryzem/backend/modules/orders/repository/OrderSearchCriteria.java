@@ -0,0 +1,26 @@
+package com.oryzem.backend.modules.orders.repository;
+
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+
+import java.time.Instant;
+
+public record OrderSearchCriteria(
+        OrderStatus status,
+        String merchantId,
+        Instant from,
+        Instant to
+) {
+
+    public boolean matches(OrderStatus orderStatus, String orderMerchantId, Instant createdAt) {
+        if (status != null && status != orderStatus) {
+            return false;
+        }
+        if (merchantId != null && !merchantId.equals(orderMerchantId)) {
+            return false;
+        }
+        if (from != null && createdAt.isBefore(from)) {
+            return false;
+        }
+        return to == null || createdAt.isBefore(to);
+    }
+}
@@ -0,0 +1,43 @@
+package com.oryzem.backend.modules.orders.service;
+
+import com.oryzem.backend.modules.orders.config.OrderArchiveProperties;
+import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+/**
+ * Periodically moves old COMPLETED and CANCELED orders out of the heap into the cold tier.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.orders.archive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveScheduler {
+
+    private final OrderRepository orderRepository;
+    private final OrderArchiveProperties properties;
+
+    @Scheduled(
+            initialDelayString = "${app.orders.archive.sweep-interval-seconds:900}000",
+            fixedDelayString = "${app.orders.archive.sweep-interval-seconds:900}000"
+    )
+    public void sweep() {
+        Instant cutoff = Instant.now().minus(properties.minAge());
+        long startedAt = System.nanoTime();
+        try {
+            int archived = orderRepository.archiveTerminalOrders(cutoff);
+            if (archived > 0) {
+                log.info("Archived {} terminal orders older than {} in {} ms",
+                        archived, cutoff, (System.nanoTime() - startedAt) / 1_000_000);
+            }
+        } catch (UncheckedIOException ex) {
+            log.error("Failed to archive terminal orders", ex);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.oryzem.backend.modules.orders.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.core.tenant.TenantScope;
+import com.oryzem.backend.modules.orders.config.OrderStreamProperties;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.dto.OrderChangeEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tenant-scoped feed of order state changes for the SSE stream.
+ *
+ * <p>Each change is serialized once and handed to every connection of the tenant through a small
+ * bounded queue, which a shared pool of sender threads drains. A connection that cannot keep up
+ * does not hold anything else back: when its queue overflows the pending changes are dropped and
+ * it receives a single {@code reset} event telling the screen to reload its orders.
+ *
+ * <p>The last {@code replayBufferSize} changes per tenant are kept so a reconnecting client can
+ * resume after its {@code Last-Event-ID}; if that id is too old or from before a restart, it gets
+ * a {@code reset} event instead.
+ */
+@Component
+@Slf4j
+public class OrderChangeFeed {
+
+    public static final String CHANGE_EVENT = "order";
+    public static final String RESET_EVENT = "reset";
+
+    private static final FeedEvent HEARTBEAT = new FeedEvent(null, null, null);
+    private static final String RESET_DATA = "{\"reason\":\"resync\"}";
+
+    private final ObjectMapper objectMapper;
+    private final int replayBufferSize;
+    private final int connectionQueueSize;
+    private final long connectionTimeoutMillis;
+    // Distinguishes event ids of this process from ids handed out before a restart.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ExecutorService senders;
+    private final ConcurrentMap<String, TenantFeed> feedsByTenant = new ConcurrentHashMap<>();
+
+    public OrderChangeFeed(OrderStreamProperties properties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.replayBufferSize = properties.replayBufferSize();
+        this.connectionQueueSize = properties.connectionQueueSize();
+        this.connectionTimeoutMillis = properties.connectionTimeoutSeconds() * 1000;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(properties.senderThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes the new state of an order to the current tenant's connections.
+     */
+    public void publish(Order order) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(OrderChangeEvent.builder()
+                    .orderId(order.getId())
+                    .source(order.getSource())
+                    .merchantId(order.getMerchantId())
+                    .externalId(order.getExternalId())
+                    .status(order.getStatus())
+                    .stockAllocated(order.isStockAllocated())
+                    .version(order.getVersion())
+                    .updatedAt(order.getUpdatedAt())
+                    .build());
+        } catch (JsonProcessingException ex) {
+            log.warn("Failed to serialize change of order {}", order.getId(), ex);
+            return;
+        }
+        tenantFeed(TenantScope.current()).append(data);
+    }
+
+    /**
+     * Opens an SSE connection for the current tenant, replaying the changes after
+     * {@code lastEventId} when it is given.
+     */
+    public SseEmitter open(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(connectionTimeoutMillis);
+        Subscription subscription = subscribe(TenantScope.current(), lastEventId, new EmitterSink(emitter));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(ex -> subscription.cancel());
+        return emitter;
+    }
+
+    public Subscription subscribe(String tenantScope, String lastEventId, Sink sink) {
+        Subscription subscription = new Subscription(tenantFeed(tenantScope), sink);
+        subscription.feed.attach(subscription, lastEventId);
+        subscription.schedule();
+        return subscription;
+    }
+
+    public int connectionCount() {
+        return feedsByTenant.values().stream().mapToInt(feed -> feed.subscribers.size()).sum();
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.orders.stream.heartbeat-seconds:15}000",
+            fixedDelayString = "${app.orders.stream.heartbeat-seconds:15}000"
+    )
+    public void heartbeat() {
+        // Keeps proxies from closing idle connections and detects clients that went away.
+        for (TenantFeed feed : feedsByTenant.values()) {
+            for (Subscription subscription : feed.subscribers) {
+                subscription.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (TenantFeed feed : feedsByTenant.values()) {
+            for (Subscription subscription : feed.subscribers) {
+                subscription.cancel();
+                subscription.sink.close();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    private TenantFeed tenantFeed(String tenantScope) {
+        return feedsByTenant.computeIfAbsent(tenantScope, ignored -> new TenantFeed());
+    }
+
+    /** One frame of the stream; {@code data} is already serialized JSON. */
+    public record FeedEvent(String id, String name, String data) {
+    }
+
+    /** Destination of one connection; called from a sender thread, never concurrently. */
+    public interface Sink {
+
+        void send(FeedEvent event) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void close();
+    }
+
+    private final class TenantFeed {
+
+        private final FeedEvent[] recent = new FeedEvent[replayBufferSize];
+        private final Set<Subscription> subscribers = ConcurrentHashMap.newKeySet();
+        // Guarded by this.
+        private long lastSequence;
+
+        synchronized void append(String data) {
+            long sequence = ++lastSequence;
+            FeedEvent event = new FeedEvent(eventId(sequence), CHANGE_EVENT, data);
+            recent[(int) (sequence % recent.length)] = event;
+            for (Subscription subscription : subscribers) {
+                subscription.offer(event);
+            }
+        }
+
+        /**
+         * Queues the backlog after {@code lastEventId} and registers the subscription in one step,
+         * so a concurrent change is delivered exactly once.
+         */
+        synchronized void attach(Subscription subscription, String lastEventId) {
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                long after = parseSequence(lastEventId.trim());
+                if (after < 0 || after > lastSequence || lastSequence - after > recent.length) {
+                    subscription.requestReset(eventId(lastSequence));
+                } else {
+                    for (long sequence = after + 1; sequence <= lastSequence; sequence++) {
+                        subscription.offer(recent[(int) (sequence % recent.length)]);
+                    }
+                }
+            }
+            subscribers.add(subscription);
+        }
+    }
+
+    public final class Subscription {
+
+        private final TenantFeed feed;
+        private final Sink sink;
+        private final ArrayBlockingQueue<FeedEvent> queue = new ArrayBlockingQueue<>(connectionQueueSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile String pendingResetId;
+        private volatile boolean cancelled;
+
+        private Subscription(TenantFeed feed, Sink sink) {
+            this.feed = feed;
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            feed.subscribers.remove(this);
+            queue.clear();
+        }
+
+        private void offer(FeedEvent event) {
+            if (cancelled) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                if (event == HEARTBEAT) {
+                    return;
+                }
+                // Too slow to keep up: drop what is pending and have the client resync from here.
+                requestReset(event.id());
+            }
+            schedule();
+        }
+
+        private void requestReset(String resetId) {
+            pendingResetId = resetId;
+            queue.clear();
+        }
+
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!cancelled) {
+                    String resetId = pendingResetId;
+                    if (resetId != null) {
+                        pendingResetId = null;
+                        sink.send(new FeedEvent(resetId, RESET_EVENT, RESET_DATA));
+                        continue;
+                    }
+                    FeedEvent event = queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    if (event == HEARTBEAT) {
+                        sink.heartbeat();
+                    } else {
+                        sink.send(event);
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                // The client went away; the emitter callbacks may not fire for a broken pipe.
+                cancel();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() || pendingResetId != null) {
+                schedule();
+            }
+        }
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    private long parseSequence(String eventId) {
+        String prefix = epoch + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements Sink {
+
+        @Override
+        public void send(FeedEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(event.id())
+                    .name(event.name())
+                    .data(event.data(), MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("keepalive"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
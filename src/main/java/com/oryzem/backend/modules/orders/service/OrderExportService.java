@@ -0,0 +1,46 @@
+package com.oryzem.backend.modules.orders.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final int NEWLINE = '\n';
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes one JSON document per line for every order created in {@code [from, to)}.
+     * The caller owns the stream; it is flushed but not closed.
+     */
+    public long writeNdjson(Instant from, Instant to, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long[] written = {0};
+        try {
+            orderService.forEachOrder(from, to, order -> {
+                try {
+                    writer.writeValue(output, order);
+                    output.write(NEWLINE);
+                    written[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        output.flush();
+        return written[0];
+    }
+}
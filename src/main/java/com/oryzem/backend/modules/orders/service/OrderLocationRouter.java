@@ -0,0 +1,139 @@
+package com.oryzem.backend.modules.orders.service;
+
+import com.oryzem.backend.core.tenant.TenantScope;
+import com.oryzem.backend.modules.orders.config.OrderRoutingProperties;
+import com.oryzem.backend.modules.orders.domain.OrderNotFoundException;
+import com.oryzem.backend.modules.orders.dto.OrderRoutingStatsResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers which store owns an order id so order actions go straight to the canonical or the
+ * legacy backend instead of probing the canonical one first.
+ *
+ * <p>Recently seen orders sit in an exact map of two generations: when the current one fills up
+ * it becomes the previous one and the old previous one is dropped, which bounds the map without
+ * per-entry bookkeeping. Every legacy order id also goes into a Bloom filter, so legacy orders
+ * that aged out of the map still skip the canonical probe. Ids known to neither fall back to the
+ * old canonical-then-legacy probe, and the outcome is remembered.
+ */
+@Component
+public class OrderLocationRouter {
+
+    enum OrderLocation {
+        CANONICAL,
+        LEGACY
+    }
+
+    private final int generationCapacity;
+    private final BloomFilter legacyOrders;
+    private volatile ConcurrentMap<String, OrderLocation> currentGeneration = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, OrderLocation> previousGeneration = new ConcurrentHashMap<>();
+
+    private final LongAdder exactHits = new LongAdder();
+    private final LongAdder bloomHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public OrderLocationRouter(OrderRoutingProperties properties) {
+        this.generationCapacity = Math.max(1, properties.recentCapacity() / 2);
+        this.legacyOrders = new BloomFilter(properties.expectedLegacyOrders(), properties.falsePositiveRate());
+    }
+
+    /**
+     * Records an order created in the legacy store.
+     */
+    public void recordLegacy(String orderId) {
+        remember(routingKey(orderId), OrderLocation.LEGACY);
+    }
+
+    /**
+     * Runs the action against the store that owns {@code orderId}.
+     */
+    public <T> T route(String orderId, Function<String, T> canonical, Function<String, T> legacy) {
+        String key = routingKey(orderId);
+        OrderLocation known = lookup(key);
+        if (known != null) {
+            exactHits.increment();
+            return known == OrderLocation.LEGACY ? legacy.apply(orderId) : canonical.apply(orderId);
+        }
+
+        if (legacyOrders.mightContain(key)) {
+            try {
+                T result = legacy.apply(orderId);
+                bloomHits.increment();
+                putRecent(key, OrderLocation.LEGACY);
+                return result;
+            } catch (OrderNotFoundException ex) {
+                falsePositives.increment();
+                T result = canonical.apply(orderId);
+                remember(key, OrderLocation.CANONICAL);
+                return result;
+            }
+        }
+
+        misses.increment();
+        T result;
+        try {
+            result = canonical.apply(orderId);
+        } catch (OrderNotFoundException | IllegalArgumentException | IllegalStateException ex) {
+            result = legacy.apply(orderId);
+            remember(key, OrderLocation.LEGACY);
+            return result;
+        }
+        remember(key, OrderLocation.CANONICAL);
+        return result;
+    }
+
+    public OrderRoutingStatsResponse stats() {
+        return OrderRoutingStatsResponse.builder()
+                .exactHits(exactHits.sum())
+                .bloomHits(bloomHits.sum())
+                .falsePositives(falsePositives.sum())
+                .misses(misses.sum())
+                .recentEntries(currentGeneration.size() + previousGeneration.size())
+                .legacyFilterInsertions(legacyOrders.insertions())
+                .build();
+    }
+
+    private OrderLocation lookup(String key) {
+        OrderLocation location = currentGeneration.get(key);
+        if (location != null) {
+            return location;
+        }
+        location = previousGeneration.get(key);
+        if (location != null) {
+            // Keep orders that are still being worked on in the young generation.
+            putRecent(key, location);
+        }
+        return location;
+    }
+
+    private void remember(String key, OrderLocation location) {
+        if (location == OrderLocation.LEGACY) {
+            legacyOrders.add(key);
+        }
+        putRecent(key, location);
+    }
+
+    private void putRecent(String key, OrderLocation location) {
+        ConcurrentMap<String, OrderLocation> generation = currentGeneration;
+        generation.put(key, location);
+        if (generation.size() >= generationCapacity) {
+            synchronized (this) {
+                if (currentGeneration == generation) {
+                    previousGeneration = generation;
+                    currentGeneration = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    private static String routingKey(String orderId) {
+        return TenantScope.current() + "::" + orderId;
+    }
+}
@@ -1,45 +1,130 @@
 package com.oryzem.backend.modules.orders.service;
 
-import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.core.ids.IdGenerator;
+import com.oryzem.backend.core.ids.TimeOrderedIdGenerator;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
 import com.oryzem.backend.modules.catalog.repository.ProductRepository;
 import com.oryzem.backend.modules.inventory.domain.InsufficientStockException;
 import com.oryzem.backend.modules.inventory.service.InventoryService;
-import com.oryzem.backend.modules.integrations.service.MarketplaceStatusSyncService;
+import com.oryzem.backend.modules.integrations.service.MarketplaceStatusOutbox;
+import com.oryzem.backend.modules.orders.domain.Money;
 import com.oryzem.backend.modules.orders.domain.Order;
 import com.oryzem.backend.modules.orders.domain.OrderAuditEvent;
+import com.oryzem.backend.modules.orders.domain.OrderConcurrencyException;
 import com.oryzem.backend.modules.orders.domain.OrderItem;
 import com.oryzem.backend.modules.orders.domain.OrderNotFoundException;
 import com.oryzem.backend.modules.orders.domain.OrderSource;
 import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import com.oryzem.backend.modules.orders.dto.BatchCreateOrderResponse;
+import com.oryzem.backend.modules.orders.dto.BatchOrderOutcome;
+import com.oryzem.backend.modules.orders.dto.BatchOrderResult;
 import com.oryzem.backend.modules.orders.dto.CreateOrderRequest;
 import com.oryzem.backend.modules.orders.dto.OrderItemRequest;
 import com.oryzem.backend.modules.orders.dto.OrderItemResponse;
+import com.oryzem.backend.modules.orders.dto.OrderPageResponse;
 import com.oryzem.backend.modules.orders.dto.OrderResponse;
 import com.oryzem.backend.modules.orders.repository.OrderAuditEventRepository;
+import com.oryzem.backend.modules.orders.repository.OrderCursor;
 import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import com.oryzem.backend.modules.orders.repository.OrderSearchCriteria;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final String MESSAGE_ALREADY_EXISTS = "Order already exists";
+    private static final String MESSAGE_CREATED = "Order created successfully";
+
     private final OrderRepository orderRepository;
     private final OrderAuditEventRepository orderAuditEventRepository;
     private final ProductRepository productRepository;
     private final InventoryService inventoryService;
     @Autowired(required = false)
-    private MarketplaceStatusSyncService marketplaceStatusSyncService;
+    private MarketplaceStatusOutbox marketplaceStatusOutbox;
+    @Autowired(required = false)
+    private IdGenerator idGenerator = TimeOrderedIdGenerator.shared();
+    @Autowired(required = false)
+    private OrderLocationRouter orderLocationRouter;
+    @Autowired(required = false)
+    private OrderChangeFeed orderChangeFeed;
 
     public OrderResponse createOrder(CreateOrderRequest request) {
+        return toResponse(createOrder(request, this::findProduct));
+    }
+
+    public BatchCreateOrderResponse createOrders(List<CreateOrderRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("orders is required");
+        }
+
+        Map<String, ProductView> productsById = resolveProducts(requests);
+        Function<String, ProductView> productResolver = productId -> {
+            ProductView product = productsById.get(productId);
+            if (product == null) {
+                throw new IllegalArgumentException("Unknown productId: " + productId);
+            }
+            return product;
+        };
+
+        int created = 0;
+        int duplicates = 0;
+        int failed = 0;
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            CreateOrderRequest request = requests.get(index);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("order is required");
+                }
+                CreatedOrder outcome = createOrder(request, productResolver);
+                if (outcome.duplicate()) {
+                    duplicates++;
+                } else {
+                    created++;
+                }
+                results.add(BatchOrderResult.builder()
+                        .index(index)
+                        .outcome(outcome.duplicate() ? BatchOrderOutcome.DUPLICATE : BatchOrderOutcome.CREATED)
+                        .order(toResponse(outcome))
+                        .build());
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                failed++;
+                results.add(BatchOrderResult.builder()
+                        .index(index)
+                        .outcome(BatchOrderOutcome.ERROR)
+                        .error(ex.getMessage())
+                        .build());
+            }
+        }
+
+        return BatchCreateOrderResponse.builder()
+                .createdCount(created)
+                .duplicateCount(duplicates)
+                .failedCount(failed)
+                .results(results)
+                .build();
+    }
+
+    private CreatedOrder createOrder(CreateOrderRequest request, Function<String, ProductView> productResolver) {
         OrderSource source = request.getSource();
         if (source == null) {
             throw new IllegalArgumentException("source is required");
@@ -47,32 +132,91 @@ public class OrderService {
 
         String merchantId = normalizeMerchantId(source, request.getMerchantId());
         String externalId = normalizeExternalId(source, request.getExternalId());
-        if (source != OrderSource.INTERNAL) {
-            Order existingOrder = orderRepository.findByExternalId(source, merchantId, externalId).orElse(null);
+        String orderId = idGenerator.nextId();
+        boolean external = source != OrderSource.INTERNAL;
+        if (external) {
+            // Claim the external key before resolving products so a concurrent duplicate
+            // delivery returns the winner's order without doing that work twice.
+            Order existingOrder = orderRepository.reserveExternalKey(source, merchantId, externalId, orderId).orElse(null);
             if (existingOrder != null) {
-                return toResponse(existingOrder, "Order already exists");
+                return new CreatedOrder(existingOrder, true);
+            }
+        }
+
+        Order saved;
+        try {
+            saved = orderRepository.save(buildOrder(request, orderId, source, merchantId, externalId, productResolver));
+        } catch (RuntimeException ex) {
+            if (external) {
+                orderRepository.releaseExternalKey(source, merchantId, externalId, orderId);
+            }
+            throw ex;
+        }
+
+        // The order exists from here on, so the follow-up steps must not fail the call.
+        try {
+            if (orderLocationRouter != null) {
+                orderLocationRouter.recordLegacy(saved.getId());
             }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to record location of order {}", saved.getId(), ex);
+        }
+        if (external) {
+            holdStock(saved);
         }
+        try {
+            publishChange(saved);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to publish creation of order {}", saved.getId(), ex);
+        }
+        return new CreatedOrder(saved, false);
+    }
 
-        List<OrderItem> items = normalizeItems(request.getItems());
+    private Order buildOrder(
+            CreateOrderRequest request,
+            String orderId,
+            OrderSource source,
+            String merchantId,
+            String externalId,
+            Function<String, ProductView> productResolver
+    ) {
+        List<OrderItem> items = normalizeItems(request.getItems(), productResolver);
         Instant now = Instant.now();
-        Order order = Order.builder()
-                .id(UUID.randomUUID().toString())
+        return Order.builder()
+                .id(orderId)
                 .source(source)
                 .merchantId(merchantId)
                 .externalId(externalId)
                 .customerName(normalizeRequired(request.getCustomerName(), "customerName"))
                 .items(items)
-                .totalAmount(calculateTotal(items))
+                .currency(Money.DEFAULT_CURRENCY)
+                .totalAmountMinor(calculateTotal(items))
                 .status(OrderStatus.RECEIVED)
                 .createdAt(now)
                 .updatedAt(now)
                 .stockAllocated(false)
                 .allocationError(null)
                 .build();
+    }
 
-        Order saved = orderRepository.save(order);
-        return toResponse(saved, "Order created successfully");
+    /**
+     * Visits every order created in {@code [from, to)}, newest first, one repository page at a time
+     * so memory stays bounded by the page size rather than the order history.
+     */
+    public void forEachOrder(Instant from, Instant to, Consumer<OrderResponse> consumer) {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(null, null, from, to);
+        OrderCursor cursor = null;
+        List<Order> page;
+        do {
+            page = orderRepository.search(criteria, cursor, EXPORT_PAGE_SIZE);
+            for (Order order : page) {
+                consumer.accept(toResponse(order, null));
+            }
+            if (!page.isEmpty()) {
+                Order last = page.get(page.size() - 1);
+                cursor = new OrderCursor(last.getCreatedAt(), last.getId());
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
     }
 
     public OrderResponse getOrderById(String orderId) {
@@ -80,6 +224,28 @@ public class OrderService {
         return toResponse(order, "Order found");
     }
 
+    public OrderPageResponse listOrders(
+            OrderStatus status,
+            String merchantId,
+            Instant from,
+            Instant to,
+            String cursor,
+            int size
+    ) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        OrderSearchCriteria criteria = new OrderSearchCriteria(status, trimToNull(merchantId), from, to);
+        List<Order> orders = orderRepository.search(criteria, decodeCursor(cursor), size);
+        String nextCursor = orders.size() < size ? null : encodeCursor(orders.get(orders.size() - 1));
+
+        return OrderPageResponse.builder()
+                .items(orders.stream().map(order -> toResponse(order, null)).toList())
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     public OrderResponse confirmOrder(String orderId) {
         Order order = findOrder(orderId);
 
@@ -99,7 +265,13 @@ public class OrderService {
             throw ex;
         }
 
-        Order confirmedOrder = updateOrder(order, OrderStatus.CONFIRMED, true, null);
+        Order confirmedOrder;
+        try {
+            confirmedOrder = updateOrder(order, OrderStatus.CONFIRMED, true, null);
+        } catch (OrderConcurrencyException ex) {
+            inventoryService.releaseStockForOrder(order.getId(), order.getItems());
+            throw ex;
+        }
         publishMarketplaceStatus(confirmedOrder, OrderStatus.CONFIRMED);
         return toResponse(confirmedOrder, "Order confirmed");
     }
@@ -110,11 +282,12 @@ public class OrderService {
             return toResponse(order, "Order already canceled");
         }
 
+        Order canceledOrder = updateOrder(order, OrderStatus.CANCELED, false, order.getAllocationError());
         if (order.isStockAllocated()) {
-            inventoryService.releaseStockForOrder(order.getId(), order.getItems());
+            inventoryService.releaseStockForOrder(canceledOrder.getId(), canceledOrder.getItems());
+        } else {
+            inventoryService.releaseHoldForOrder(canceledOrder.getId());
         }
-
-        Order canceledOrder = updateOrder(order, OrderStatus.CANCELED, false, order.getAllocationError());
         publishMarketplaceStatus(canceledOrder, OrderStatus.CANCELED);
         return toResponse(canceledOrder, "Order canceled");
     }
@@ -185,17 +358,42 @@ public class OrderService {
         return toResponse(completedOrder, "Order completed");
     }
 
+    /**
+     * Holds stock for a marketplace order until it is confirmed, so rush-hour orders waiting in
+     * RECEIVED cannot be oversold. The order is accepted either way; without a hold it may still
+     * fail allocation on confirm.
+     */
+    private void holdStock(Order order) {
+        try {
+            inventoryService.holdStockForOrder(order.getId(), order.getItems());
+        } catch (InsufficientStockException ex) {
+            registerAuditEvent(order.getId(), "STOCK_HOLD_FAILED", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to hold stock for order {}", order.getId(), ex);
+            registerAuditEvent(order.getId(), "STOCK_HOLD_FAILED", ex.getMessage());
+        }
+    }
+
     private Order updateOrder(Order original, OrderStatus status, boolean stockAllocated, String allocationError) {
-        original.setStatus(status);
-        original.setStockAllocated(stockAllocated);
-        original.setAllocationError(allocationError);
-        original.setUpdatedAt(Instant.now());
-        return orderRepository.save(original);
+        Order saved = orderRepository.save(original.toBuilder()
+                .status(status)
+                .stockAllocated(stockAllocated)
+                .allocationError(allocationError)
+                .updatedAt(Instant.now())
+                .build());
+        publishChange(saved);
+        return saved;
+    }
+
+    private void publishChange(Order order) {
+        if (orderChangeFeed != null) {
+            orderChangeFeed.publish(order);
+        }
     }
 
     private void registerAuditEvent(String orderId, String eventType, String message) {
         OrderAuditEvent event = OrderAuditEvent.builder()
-                .id(UUID.randomUUID().toString())
+                .id(idGenerator.nextId())
                 .orderId(orderId)
                 .eventType(eventType)
                 .message(message)
@@ -204,22 +402,45 @@ public class OrderService {
         orderAuditEventRepository.save(event);
     }
 
-    private List<OrderItem> normalizeItems(List<OrderItemRequest> requestedItems) {
+    private List<OrderItem> normalizeItems(List<OrderItemRequest> requestedItems, Function<String, ProductView> productResolver) {
         if (requestedItems == null || requestedItems.isEmpty()) {
             throw new IllegalArgumentException("items is required");
         }
 
         return requestedItems.stream()
-                .map(this::toOrderItem)
+                .map(requestItem -> toOrderItem(requestItem, productResolver))
                 .toList();
     }
 
-    private OrderItem toOrderItem(OrderItemRequest requestItem) {
-        String productId = normalizeRequired(requestItem.getProductId(), "productId");
-        Product product = productRepository.findById(productId)
+    private Map<String, ProductView> resolveProducts(List<CreateOrderRequest> requests) {
+        Set<String> productIds = new HashSet<>();
+        for (CreateOrderRequest request : requests) {
+            if (request == null || request.getItems() == null) {
+                continue;
+            }
+            for (OrderItemRequest item : request.getItems()) {
+                String productId = item == null ? null : trimToNull(item.getProductId());
+                if (productId != null) {
+                    productIds.add(productId);
+                }
+            }
+        }
+        return productRepository.findViewsById(productIds);
+    }
+
+    private ProductView findProduct(String productId) {
+        return productRepository.findViewById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown productId: " + productId));
+    }
 
-        if (!product.isActive()) {
+    private OrderItem toOrderItem(OrderItemRequest requestItem, Function<String, ProductView> productResolver) {
+        if (requestItem == null) {
+            throw new IllegalArgumentException("item is required");
+        }
+        String productId = normalizeRequired(requestItem.getProductId(), "productId");
+        ProductView product = productResolver.apply(productId);
+
+        if (!product.active()) {
             throw new IllegalStateException("Product is inactive: " + productId);
         }
 
@@ -229,7 +450,7 @@ public class OrderService {
         }
 
         BigDecimal unitPrice = requestItem.getUnitPrice() == null
-                ? product.getUnitPrice()
+                ? product.unitPrice()
                 : requestItem.getUnitPrice();
         if (unitPrice == null || unitPrice.signum() < 0) {
             throw new IllegalArgumentException("unitPrice must be >= 0");
@@ -237,21 +458,23 @@ public class OrderService {
 
         String nameSnapshot = trimToNull(requestItem.getNameSnapshot());
         if (nameSnapshot == null) {
-            nameSnapshot = product.getName();
+            nameSnapshot = product.name();
         }
 
         return OrderItem.builder()
                 .productId(productId)
                 .nameSnapshot(nameSnapshot)
                 .quantity(quantity)
-                .unitPrice(unitPrice)
+                .unitPriceMinor(Money.toMinorUnits(unitPrice, Money.DEFAULT_CURRENCY))
                 .build();
     }
 
-    private BigDecimal calculateTotal(List<OrderItem> items) {
-        return items.stream()
-                .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private long calculateTotal(List<OrderItem> items) {
+        long total = 0;
+        for (OrderItem item : items) {
+            total = Money.add(total, Money.lineTotal(item.getUnitPriceMinor(), item.getQuantity()));
+        }
+        return total;
     }
 
     private String normalizeExternalId(OrderSource source, String externalId) {
@@ -274,13 +497,39 @@ public class OrderService {
                 .orElseThrow(() -> new OrderNotFoundException(normalizedOrderId));
     }
 
+    private String encodeCursor(Order order) {
+        Instant createdAt = order.getCreatedAt();
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private OrderCursor decodeCursor(String cursor) {
+        String normalized = trimToNull(cursor);
+        if (normalized == null) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(normalized), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+            return new OrderCursor(createdAt, parts[2]);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private OrderResponse toResponse(CreatedOrder outcome) {
+        return toResponse(outcome.order(), outcome.duplicate() ? MESSAGE_ALREADY_EXISTS : MESSAGE_CREATED);
+    }
+
     private OrderResponse toResponse(Order order, String message) {
         List<OrderItemResponse> items = order.getItems().stream()
                 .map(item -> OrderItemResponse.builder()
                         .productId(item.getProductId())
                         .nameSnapshot(item.getNameSnapshot())
                         .quantity(item.getQuantity())
-                        .unitPrice(item.getUnitPrice())
+                        .unitPrice(Money.toDecimal(item.getUnitPriceMinor(), order.getCurrency()))
                         .build())
                 .toList();
 
@@ -291,7 +540,8 @@ public class OrderService {
                 .externalId(order.getExternalId())
                 .customerName(order.getCustomerName())
                 .items(items)
-                .totalAmount(order.getTotalAmount())
+                .currency(order.getCurrency().getCurrencyCode())
+                .totalAmount(Money.toDecimal(order.getTotalAmountMinor(), order.getCurrency()))
                 .status(order.getStatus())
                 .createdAt(order.getCreatedAt())
                 .updatedAt(order.getUpdatedAt())
@@ -318,20 +568,14 @@ public class OrderService {
     }
 
     private void publishMarketplaceStatus(Order order, OrderStatus status) {
-        if (marketplaceStatusSyncService == null) {
+        if (marketplaceStatusOutbox == null) {
             return;
         }
 
-        try {
-            marketplaceStatusSyncService.publish(order.getSource(), order.getMerchantId(), order.getExternalId(), status);
-        } catch (Exception ex) {
-            log.warn(
-                    "Failed to publish marketplace status for order {} (source={} status={}): {}",
-                    order.getId(),
-                    order.getSource(),
-                    status,
-                    ex.getMessage()
-            );
-        }
+        marketplaceStatusOutbox.enqueue(order.getSource(), order.getMerchantId(), order.getExternalId(), status);
+    }
+
+    /** The order a create call ended with: the new one, or the one already holding its external key. */
+    private record CreatedOrder(Order order, boolean duplicate) {
     }
 }
@@ -0,0 +1,29 @@
+package com.oryzem.backend.core.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void shouldMintVersion7IdsInCreationOrder() {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        long before = System.currentTimeMillis();
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        UUID first = UUID.fromString(ids.get(0));
+        assertThat(first.version()).isEqualTo(7);
+        assertThat(first.variant()).isEqualTo(2);
+        assertThat(first.getMostSignificantBits() >>> 16).isGreaterThanOrEqualTo(before);
+    }
+}
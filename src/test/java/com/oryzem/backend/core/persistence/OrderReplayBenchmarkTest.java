@@ -0,0 +1,110 @@
+package com.oryzem.backend.core.persistence;
+
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replay timing for one million orders. Run with {@code mvn test -Dtest=OrderReplayBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderReplayBenchmarkTest {
+
+    private static final int ORDERS = 1_000_000;
+
+    @Test
+    void measureReplayOfOneMillionOrders() throws IOException {
+        Path directory = Files.createTempDirectory("oryzem-wal-benchmark");
+        try {
+            long writeMillis = write(directory);
+            long logReplayMillis = replay(directory);
+            compact(directory);
+            long snapshotReplayMillis = replay(directory);
+
+            System.out.printf("orders=%d write=%dms logReplay=%dms snapshotReplay=%dms%n",
+                    ORDERS, writeMillis, logReplayMillis, snapshotReplayMillis);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private long write(Path directory) throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(new PersistenceProperties(true, directory.toString(), false, 0));
+        OrderRepository orderRepository = new OrderRepository();
+        ReflectionTestUtils.setField(orderRepository, "writeAheadLog", writeAheadLog);
+        new PersistenceManager(writeAheadLog, stores(orderRepository)).afterSingletonsInstantiated();
+
+        long started = System.nanoTime();
+        Instant base = Instant.parse("2026-01-01T00:00:00Z");
+        for (int i = 0; i < ORDERS; i++) {
+            orderRepository.save(buildOrder(i, base.plusMillis(i)));
+        }
+        writeAheadLog.close();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private void compact(Path directory) throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(new PersistenceProperties(true, directory.toString(), false, 0));
+        PersistenceManager manager = new PersistenceManager(writeAheadLog, stores(new OrderRepository()));
+        manager.afterSingletonsInstantiated();
+        manager.snapshot();
+        writeAheadLog.close();
+    }
+
+    private long replay(Path directory) throws IOException {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(new PersistenceProperties(true, directory.toString(), false, 0));
+        OrderRepository orderRepository = new OrderRepository();
+        long started = System.nanoTime();
+        new PersistenceManager(writeAheadLog, stores(orderRepository)).afterSingletonsInstantiated();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        writeAheadLog.close();
+        assertThat(orderRepository.findById("order-" + (ORDERS - 1))).isPresent();
+        return elapsedMillis;
+    }
+
+    private List<DurableStore> stores(OrderRepository orderRepository) {
+        return List.of(orderRepository, new ProductRepository(), new InventoryItemRepository(), new InventoryMovementRepository());
+    }
+
+    private Order buildOrder(int index, Instant createdAt) {
+        return Order.builder()
+                .id("order-" + index)
+                .source(OrderSource.IFOOD)
+                .merchantId("merchant-" + (index % 50))
+                .externalId("ext-" + index)
+                .customerName("Cliente " + index)
+                .items(List.of(
+                        OrderItem.builder().productId("product-" + (index % 200)).nameSnapshot("Pizza").quantity(1)
+                                .unitPriceMinor(5990).build(),
+                        OrderItem.builder().productId("product-" + (index % 37)).nameSnapshot("Refrigerante").quantity(2)
+                                .unitPriceMinor(1200).build()
+                ))
+                .totalAmountMinor(8390)
+                .status(OrderStatus.values()[index % OrderStatus.values().length])
+                .createdAt(createdAt)
+                .updatedAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,368 @@
+package com.oryzem.backend.core.persistence;
+
+import com.oryzem.backend.core.tenant.TenantScope;
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.orders.config.OrderArchiveProperties;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import com.oryzem.backend.modules.orders.repository.OrderColdStore;
+import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import com.oryzem.backend.modules.orders.repository.OrderSearchCriteria;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistenceManagerTest {
+
+    private Path directory;
+    private WriteAheadLog writeAheadLog;
+    private OrderRepository orderRepository;
+    private ProductRepository productRepository;
+    private OrderColdStore coldStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("oryzem-wal-test");
+        start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        writeAheadLog.close();
+        if (coldStore != null) {
+            coldStore.close();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void shouldRestoreStoresFromSnapshotAndLogTail() throws IOException {
+        Product product = productRepository.save(Product.builder()
+                .id("product-1")
+                .sku("COXINHA")
+                .name("Coxinha")
+                .category("Salgados")
+                .unitPrice(new BigDecimal("7.50"))
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build());
+        Order received = orderRepository.save(buildOrder("order-1", product.getId()));
+        orderRepository.save(received.toBuilder().status(OrderStatus.CONFIRMED).stockAllocated(true).build());
+
+        PersistenceManager manager = new PersistenceManager(writeAheadLog, stores());
+        manager.snapshot();
+
+        Order confirmed = orderRepository.findById("order-1").orElseThrow();
+        orderRepository.save(confirmed.toBuilder().status(OrderStatus.PREPARING).build());
+        orderRepository.save(buildOrder("order-2", product.getId()));
+        restart();
+
+        Order restored = orderRepository.findById("order-1").orElseThrow();
+        assertThat(restored.getStatus()).isEqualTo(OrderStatus.PREPARING);
+        assertThat(restored.getVersion()).isEqualTo(3);
+        assertThat(restored.isStockAllocated()).isTrue();
+        assertThat(restored.getItems()).singleElement()
+                .satisfies(item -> assertThat(item.getUnitPriceMinor()).isEqualTo(750));
+        assertThat(orderRepository.findByExternalId(OrderSource.IFOOD, "merchant-1", "ext-order-1")).isPresent();
+        assertThat(orderRepository.search(new OrderSearchCriteria(OrderStatus.PREPARING, null, null, null), null, 10))
+                .extracting(Order::getId)
+                .containsExactly("order-1");
+        assertThat(productRepository.findBySku("coxinha")).isPresent();
+        assertThat(orderRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    void shouldTruncateTornTailOfNewestSegment() throws IOException {
+        orderRepository.save(buildOrder("order-1", "product-1"));
+        writeAheadLog.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[] {0, 0, 1, 0, 42, 42}, StandardOpenOption.APPEND);
+        }
+
+        start();
+
+        assertThat(orderRepository.findById("order-1")).isPresent();
+        orderRepository.save(buildOrder("order-2", "product-1"));
+        restart();
+        assertThat(orderRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    void shouldKeepEverySaveAcknowledgedWhileSnapshotsRun() throws Exception {
+        PersistenceManager manager = new PersistenceManager(writeAheadLog, stores());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                int offset = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = offset; i < 400; i += 4) {
+                        Order received = orderRepository.save(buildOrder("order-" + i, "product-" + i));
+                        orderRepository.save(received.toBuilder().status(OrderStatus.CONFIRMED).build());
+                        productRepository.save(Product.builder()
+                                .id("product-" + i)
+                                .sku("SKU-" + i)
+                                .name("Product " + i)
+                                .category("Salgados")
+                                .unitPrice(new BigDecimal("7.50"))
+                                .createdAt(Instant.now())
+                                .updatedAt(Instant.now())
+                                .build());
+                    }
+                    return null;
+                }));
+            }
+            while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                manager.snapshot();
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        restart();
+
+        assertThat(orderRepository.findAll()).hasSize(400)
+                .allSatisfy(order -> {
+                    assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+                    assertThat(order.getVersion()).isEqualTo(2);
+                });
+        assertThat(productRepository.findAll()).hasSize(400);
+    }
+
+    @Test
+    void shouldNotRotateAwayARecordWhoseChangeIsNotVisibleYet() throws Exception {
+        ProbeStore probe = new ProbeStore();
+        PersistenceManager manager = new PersistenceManager(writeAheadLog, List.of(probe));
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch install = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> save = executor.submit(() -> {
+                long sequence = writeAheadLog.journaled(() -> {
+                    long appendedAt = writeAheadLog.append(probe, "default", output -> output.writeUTF("late"));
+                    appended.countDown();
+                    try {
+                        install.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    probe.values.add("late");
+                    return appendedAt;
+                });
+                writeAheadLog.awaitDurable(sequence);
+                return null;
+            });
+            appended.await();
+            Future<?> snapshot = executor.submit(() -> {
+                manager.snapshot();
+                return null;
+            });
+            Thread.sleep(100);
+            assertThat(snapshot.isDone()).isFalse();
+
+            install.countDown();
+            save.get(10, TimeUnit.SECONDS);
+            snapshot.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeAheadLog.close();
+        writeAheadLog = new WriteAheadLog(new PersistenceProperties(true, directory.toString(), true, 0));
+        ProbeStore restored = new ProbeStore();
+        new PersistenceManager(writeAheadLog, List.of(restored)).afterSingletonsInstantiated();
+        assertThat(restored.values).containsExactly("late");
+    }
+
+    @Test
+    void shouldKeepArchivedOrdersInTheColdTierAfterReplay() throws IOException {
+        OrderArchiveProperties archiveProperties =
+                new OrderArchiveProperties(true, directory.resolve("archive").toString(), Duration.ZERO, 0, 2);
+        PersistenceProperties persistenceProperties = new PersistenceProperties(true, directory.toString(), true, 0);
+        coldStore = new OrderColdStore(archiveProperties, persistenceProperties);
+        orderRepository.setColdStore(coldStore);
+
+        Order received = orderRepository.save(buildOrder("order-1", "product-1"));
+        orderRepository.save(received.toBuilder().status(OrderStatus.CANCELED).build());
+        orderRepository.save(buildOrder("order-2", "product-1"));
+        assertThat(orderRepository.archiveTerminalOrders(Instant.now().plusSeconds(1))).isEqualTo(1);
+
+        coldStore.close();
+        coldStore = new OrderColdStore(archiveProperties, persistenceProperties);
+        restart();
+
+        assertThat(orderRepository.findAll()).extracting(Order::getId).containsExactly("order-2");
+        assertThat(orderRepository.findById("order-1")).map(Order::getStatus).contains(OrderStatus.CANCELED);
+        assertThat(orderRepository.archiveTerminalOrders(Instant.now().plusSeconds(1))).isZero();
+        assertThat(coldStore.archivedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecoverASnapshotThatSawASkuOnTwoProducts() throws IOException {
+        Product first = productRepository.save(buildProduct("product-1", "COXINHA"));
+        new PersistenceManager(writeAheadLog, stores()).snapshot();
+        byte[] firstBeforeRename = productRecords().get("product-1");
+
+        // Renames and reuses the SKU after the rotation, having already written the old record.
+        DurableStore fuzzyProducts = new DurableStore() {
+            @Override
+            public String storeName() {
+                return productRepository.storeName();
+            }
+
+            @Override
+            public void writeSnapshot(SnapshotSink sink) throws IOException {
+                sink.write(TenantScope.current(), output -> output.write(firstBeforeRename));
+                first.setSku("COXINHA-FRANGO");
+                productRepository.save(first);
+                productRepository.save(buildProduct("product-2", "COXINHA"));
+                byte[] second = productRecords().get("product-2");
+                sink.write(TenantScope.current(), output -> output.write(second));
+            }
+
+            @Override
+            public void apply(String tenantScope, DataInput input) throws IOException {
+                productRepository.apply(tenantScope, input);
+            }
+        };
+        new PersistenceManager(writeAheadLog, List.of(orderRepository, fuzzyProducts)).snapshot();
+        restart();
+
+        assertThat(productRepository.findBySku("COXINHA")).map(Product::getId).contains("product-2");
+        assertThat(productRepository.findBySku("COXINHA-FRANGO")).map(Product::getId).contains("product-1");
+        assertThat(productRepository.findById("product-1")).map(Product::getSku).contains("COXINHA-FRANGO");
+    }
+
+    private void restart() throws IOException {
+        writeAheadLog.close();
+        start();
+    }
+
+    private void start() {
+        writeAheadLog = new WriteAheadLog(new PersistenceProperties(true, directory.toString(), true, 0));
+        orderRepository = new OrderRepository();
+        productRepository = new ProductRepository();
+        ReflectionTestUtils.setField(orderRepository, "writeAheadLog", writeAheadLog);
+        ReflectionTestUtils.setField(productRepository, "writeAheadLog", writeAheadLog);
+        if (coldStore != null) {
+            orderRepository.setColdStore(coldStore);
+        }
+        new PersistenceManager(writeAheadLog, stores()).afterSingletonsInstantiated();
+    }
+
+    private List<DurableStore> stores() {
+        return List.of(orderRepository, productRepository, new InventoryItemRepository(), new InventoryMovementRepository());
+    }
+
+    private Map<String, byte[]> productRecords() throws IOException {
+        Map<String, byte[]> records = new HashMap<>();
+        productRepository.writeSnapshot((tenantScope, encoder) -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            encoder.encode(new DataOutputStream(bytes));
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            input.readByte();
+            records.put(input.readUTF(), bytes.toByteArray());
+        });
+        return records;
+    }
+
+    private Product buildProduct(String id, String sku) {
+        return Product.builder()
+                .id(id)
+                .sku(sku)
+                .name("Coxinha")
+                .category("Salgados")
+                .unitPrice(new BigDecimal("7.50"))
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private Order buildOrder(String id, String productId) {
+        Instant now = Instant.now();
+        return Order.builder()
+                .id(id)
+                .source(OrderSource.IFOOD)
+                .merchantId("merchant-1")
+                .externalId("ext-" + id)
+                .customerName("Cliente")
+                .items(List.of(OrderItem.builder()
+                        .productId(productId)
+                        .nameSnapshot("Coxinha")
+                        .quantity(2)
+                        .unitPriceMinor(750)
+                        .build()))
+                .totalAmountMinor(1500)
+                .status(OrderStatus.RECEIVED)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    /** Store that appends before installing, like a journal write inside a compute. */
+    private static final class ProbeStore implements DurableStore {
+
+        private final List<String> values = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String storeName() {
+            return "probe";
+        }
+
+        @Override
+        public void writeSnapshot(SnapshotSink sink) throws IOException {
+            for (String value : values) {
+                sink.write("default", output -> output.writeUTF(value));
+            }
+        }
+
+        @Override
+        public void apply(String tenantScope, DataInput input) throws IOException {
+            String value = input.readUTF();
+            if (!values.contains(value)) {
+                values.add(value);
+            }
+        }
+    }
+}
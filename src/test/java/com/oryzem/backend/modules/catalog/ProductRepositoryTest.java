@@ -0,0 +1,115 @@
+package com.oryzem.backend.modules.catalog;
+
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.domain.ProductView;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductRepositoryTest {
+
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = new ProductRepository();
+    }
+
+    @Test
+    void shouldLetExactlyOneConcurrentWriterClaimASku() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                // Half the writers race for one SKU, the others each save their own.
+                String sku = i % 2 == 0 ? "PIZZA-CALABRESA" : "SUCO-" + i;
+                Product product = product("product-" + i, sku);
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        productRepository.save(product);
+                        return true;
+                    } catch (IllegalStateException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int saved = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(10, TimeUnit.SECONDS)) {
+                    saved++;
+                }
+            }
+            assertThat(saved).isEqualTo(17);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(productRepository.findAll()).hasSize(17);
+        String winner = productRepository.findBySku("pizza-calabresa").orElseThrow().getId();
+        assertThat(productRepository.findById(winner)).isPresent();
+    }
+
+    @Test
+    void shouldReleaseThePreviousSkuWhenAProductIsRenamed() {
+        productRepository.save(product("product-1", "PIZZA-MARGUERITA"));
+        productRepository.save(product("product-1", "PIZZA-MARGHERITA"));
+
+        assertThat(productRepository.findBySku("PIZZA-MARGUERITA")).isEmpty();
+        assertThat(productRepository.findBySku("PIZZA-MARGHERITA")).map(Product::getId).contains("product-1");
+        assertThatThrownBy(() -> productRepository.save(product("product-2", "pizza-margherita")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Product SKU already exists");
+
+        productRepository.save(product("product-2", "PIZZA-MARGUERITA"));
+        assertThat(productRepository.findBySku("PIZZA-MARGUERITA")).map(Product::getId).contains("product-2");
+    }
+
+    @Test
+    void shouldShareProductViewsUntilTheProductIsSavedAgain() {
+        productRepository.save(product("product-1", "ESFIHA-QUEIJO"));
+        ProductView byId = productRepository.findViewById("product-1").orElseThrow();
+
+        assertThat(productRepository.findViewBySku(" esfiha-queijo ")).containsSame(byId);
+        assertThat(productRepository.findViewsById(List.of("product-1", "missing"))).containsOnlyKeys("product-1");
+        assertThat(productRepository.findById("product-1").orElseThrow()).isNotSameAs(productRepository.findById("product-1").orElseThrow());
+
+        Product renamed = product("product-1", "ESFIHA-QUEIJO");
+        renamed.setName("Esfiha de Queijo");
+        productRepository.save(renamed);
+        assertThat(productRepository.findViewById("product-1").orElseThrow())
+                .isNotSameAs(byId)
+                .extracting(ProductView::name)
+                .isEqualTo("Esfiha de Queijo");
+        assertThat(byId.name()).isEqualTo("ESFIHA-QUEIJO");
+    }
+
+    private static Product product(String id, String sku) {
+        return Product.builder()
+                .id(id)
+                .sku(sku)
+                .name(sku)
+                .category("PIZZA")
+                .unitPrice(new BigDecimal("10.00"))
+                .active(true)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.oryzem.backend.modules.catalog;
+
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.dto.ProductCreateRequest;
+import com.oryzem.backend.modules.catalog.dto.ProductPageResponse;
+import com.oryzem.backend.modules.catalog.dto.ProductResponse;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.catalog.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ProductServiceTest {
+
+    private ProductRepository productRepository;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = new ProductRepository();
+        productService = new ProductService(productRepository);
+    }
+
+    @Test
+    void shouldPageFilteredProductsInCreationOrder() {
+        List<String> pizzas = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            pizzas.add(create("PIZZA-" + i, "PIZZA", i != 3).getId());
+            create("SUCO-" + i, "BEBIDAS", true);
+        }
+
+        List<String> listed = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ProductPageResponse page = productService.listProducts("pizza", true, cursor, 2, null);
+            page.getItems().forEach(item -> listed.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<String> expected = new ArrayList<>(pizzas);
+        expected.remove(3);
+        assertThat(listed).containsExactlyElementsOf(expected);
+        assertThat(pages).isEqualTo(4);
+        assertThat(productService.listProducts(null, false, null, 50, null).getItems())
+                .extracting(ProductResponse::getId)
+                .containsExactly(pizzas.get(3));
+        assertThat(productService.listProducts(null, null, null, 50, null).getItems()).hasSize(14);
+    }
+
+    @Test
+    void shouldProjectRequestedFieldsAndFollowCategoryChanges() {
+        ProductResponse created = create("ESFIHA-CARNE", "ESFIHA", true);
+
+        assertThat(productService.listProducts("ESFIHA", null, null, 10, "id, name,unitPrice").getItems())
+                .extracting(ProductResponse::getId, ProductResponse::getName, ProductResponse::getUnitPrice,
+                        ProductResponse::getSku, ProductResponse::getActive, ProductResponse::getCreatedAt)
+                .containsExactly(tuple(created.getId(), "ESFIHA-CARNE", new BigDecimal("6.50"), null, null, null));
+        assertThatThrownBy(() -> productService.listProducts(null, null, null, 10, "id,stock"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown field: stock");
+
+        Product moved = productRepository.findById(created.getId()).orElseThrow();
+        moved.setCategory("SALGADOS");
+        productRepository.save(moved);
+        assertThat(productService.listProducts("ESFIHA", null, null, 10, null).getItems()).isEmpty();
+        assertThat(productService.listProducts("SALGADOS", null, null, 10, null).getItems())
+                .extracting(ProductResponse::getId)
+                .containsExactly(created.getId());
+        assertThat(productService.listProducts(null, null, null, 10, null).getItems()).hasSize(1);
+    }
+
+    private ProductResponse create(String sku, String category, boolean active) {
+        return productService.createProduct(ProductCreateRequest.builder()
+                .sku(sku)
+                .name(sku)
+                .category(category)
+                .unitPrice(new BigDecimal("6.50"))
+                .active(active)
+                .build());
+    }
+}
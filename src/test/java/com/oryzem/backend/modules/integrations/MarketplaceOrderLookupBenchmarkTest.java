@@ -0,0 +1,105 @@
+package com.oryzem.backend.modules.integrations;
+
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.integrations.domain.MarketplaceOrderItemPayload;
+import com.oryzem.backend.modules.integrations.domain.MarketplaceOrderPayload;
+import com.oryzem.backend.modules.integrations.service.MarketplaceOrderMapper;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.service.InventoryService;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.dto.CreateOrderRequest;
+import com.oryzem.backend.modules.orders.repository.OrderAuditEventRepository;
+import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import com.oryzem.backend.modules.orders.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Heap allocated per ingested marketplace order of five lines, half resolved by product id and
+ * half by SKU, for the mapping step alone and for mapping plus order creation. Run with
+ * {@code mvn test -Dtest=MarketplaceOrderLookupBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MarketplaceOrderLookupBenchmarkTest {
+
+    private static final int PRODUCTS = 500;
+    private static final int LINES = 5;
+    private static final int WARMUP_ORDERS = 20_000;
+    private static final int ORDERS = 50_000;
+
+    @Test
+    void measureAllocationsPerIngestedOrder() {
+        ProductRepository productRepository = new ProductRepository();
+        InventoryService inventoryService = new InventoryService(
+                productRepository,
+                new InventoryItemRepository(),
+                new InventoryMovementRepository()
+        );
+        OrderService orderService = new OrderService(new OrderRepository(), new OrderAuditEventRepository(), productRepository, inventoryService);
+        MarketplaceOrderMapper mapper = new MarketplaceOrderMapper(productRepository);
+        for (int i = 0; i < PRODUCTS; i++) {
+            productRepository.save(Product.builder()
+                    .id("product-" + i)
+                    .sku("SKU-" + i)
+                    .name("Product " + i)
+                    .category("PIZZA")
+                    .unitPrice(new BigDecimal("10.00"))
+                    .active(true)
+                    .createdAt(Instant.now())
+                    .updatedAt(Instant.now())
+                    .build());
+        }
+        List<MarketplaceOrderPayload> payloads = new ArrayList<>(ORDERS);
+        for (int order = 0; order < ORDERS; order++) {
+            List<MarketplaceOrderItemPayload> items = new ArrayList<>(LINES);
+            for (int line = 0; line < LINES; line++) {
+                int product = (order * LINES + line) % PRODUCTS;
+                items.add(line % 2 == 0
+                        ? MarketplaceOrderItemPayload.builder().productId("product-" + product).quantity(1).build()
+                        : MarketplaceOrderItemPayload.builder().sku("SKU-" + product).quantity(1).build());
+            }
+            payloads.add(MarketplaceOrderPayload.builder()
+                    .source(OrderSource.IFOOD)
+                    .merchantId("merchant-1")
+                    .externalOrderId("ext-" + order)
+                    .customerName("Customer")
+                    .items(items)
+                    .build());
+        }
+
+        for (int order = 0; order < WARMUP_ORDERS; order++) {
+            mapper.toCreateOrderRequest(payloads.get(order));
+        }
+        long before = allocatedBytes();
+        for (MarketplaceOrderPayload payload : payloads) {
+            mapper.toCreateOrderRequest(payload);
+        }
+        long mappingBytes = (allocatedBytes() - before) / ORDERS;
+
+        for (int order = 0; order < WARMUP_ORDERS; order++) {
+            orderService.createOrder(mapper.toCreateOrderRequest(payloads.get(order)));
+        }
+        before = allocatedBytes();
+        for (int order = WARMUP_ORDERS; order < ORDERS; order++) {
+            CreateOrderRequest request = mapper.toCreateOrderRequest(payloads.get(order));
+            assertThat(orderService.createOrder(request).getId()).isNotNull();
+        }
+        long ingestBytes = (allocatedBytes() - before) / (ORDERS - WARMUP_ORDERS);
+
+        System.out.printf("lines/order=%d mapping=%d B/order ingest=%d B/order%n", LINES, mappingBytes, ingestBytes);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,96 @@
+package com.oryzem.backend.modules.integrations;
+
+import com.oryzem.backend.modules.integrations.config.MarketplaceStatusOutboxProperties;
+import com.oryzem.backend.modules.integrations.domain.MarketplaceOrderPayload;
+import com.oryzem.backend.modules.integrations.service.MarketplaceClient;
+import com.oryzem.backend.modules.integrations.service.MarketplaceStatusOutbox;
+import com.oryzem.backend.modules.integrations.service.MarketplaceStatusSyncService;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MarketplaceStatusOutboxTest {
+
+    private RecordingClient client;
+    private MarketplaceStatusOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        client = new RecordingClient();
+        outbox = new MarketplaceStatusOutbox(
+                new MarketplaceStatusSyncService(List.of(client)),
+                new MarketplaceStatusOutboxProperties(1000, 100, 3, 1, 1)
+        );
+    }
+
+    @Test
+    void shouldCoalescePendingStatusesForSameOrder() {
+        outbox.enqueue(OrderSource.IFOOD, "merchant-1", "order-1", OrderStatus.PREPARING);
+        outbox.enqueue(OrderSource.IFOOD, "merchant-1", "order-1", OrderStatus.DISPATCHED);
+        outbox.enqueue(OrderSource.IFOOD, "merchant-1", "order-2", OrderStatus.CONFIRMED);
+        outbox.enqueue(OrderSource.INTERNAL, "merchant-1", "order-3", OrderStatus.CONFIRMED);
+
+        outbox.dispatch();
+
+        assertThat(client.delivered).containsExactly("order-1:DISPATCHED", "order-2:CONFIRMED");
+        assertThat(outbox.pendingCount()).isZero();
+    }
+
+    @Test
+    void shouldRetryFailedDeliveryUntilMaxAttempts() throws InterruptedException {
+        client.failuresRemaining = 1;
+        outbox.enqueue(OrderSource.IFOOD, "merchant-1", "order-1", OrderStatus.CONFIRMED);
+
+        outbox.dispatch();
+        assertThat(client.delivered).isEmpty();
+        assertThat(outbox.pendingCount()).isEqualTo(1);
+
+        Thread.sleep(5);
+        outbox.dispatch();
+        assertThat(client.delivered).containsExactly("order-1:CONFIRMED");
+        assertThat(outbox.pendingCount()).isZero();
+
+        client.failuresRemaining = Integer.MAX_VALUE;
+        outbox.enqueue(OrderSource.IFOOD, "merchant-1", "order-1", OrderStatus.CANCELED);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Thread.sleep(5);
+            outbox.dispatch();
+        }
+        assertThat(outbox.pendingCount()).isZero();
+    }
+
+    private static final class RecordingClient implements MarketplaceClient {
+
+        private final List<String> delivered = new ArrayList<>();
+        private int failuresRemaining;
+
+        @Override
+        public OrderSource supportedSource() {
+            return OrderSource.IFOOD;
+        }
+
+        @Override
+        public List<MarketplaceOrderPayload> fetchNewOrders() {
+            return List.of();
+        }
+
+        @Override
+        public void ackOrder(String merchantId, String externalOrderId) {
+        }
+
+        @Override
+        public void updateOrderStatus(String merchantId, String externalOrderId, OrderStatus status) {
+            if (failuresRemaining > 0) {
+                failuresRemaining--;
+                throw new IllegalStateException("marketplace unavailable");
+            }
+            delivered.add(externalOrderId + ":" + status);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.oryzem.backend.modules.inventory;
+
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.service.InventoryService;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64 threads reserving and reading stock of disjoint products, with per-product locking and with
+ * every call serialized on the service (the former {@code synchronized} methods). Run with
+ * {@code mvn test -Dtest=InventoryContentionBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InventoryContentionBenchmarkTest {
+
+    private static final int THREADS = 64;
+    private static final int RESERVATIONS_PER_THREAD = 2_000;
+    private static final int READS_PER_RESERVATION = 4;
+
+    @Test
+    void measureReservationsOnDisjointProducts() throws Exception {
+        long serializedMillis = run(true);
+        long stripedMillis = run(false);
+
+        long operations = (long) THREADS * RESERVATIONS_PER_THREAD;
+        System.out.printf("threads=%d reservations=%d serialized=%dms (%d/s) striped=%dms (%d/s)%n",
+                THREADS, operations,
+                serializedMillis, operations * 1000 / Math.max(1, serializedMillis),
+                stripedMillis, operations * 1000 / Math.max(1, stripedMillis));
+    }
+
+    private long run(boolean serialized) throws Exception {
+        ProductRepository productRepository = new ProductRepository();
+        InventoryService inventoryService = new InventoryService(
+                productRepository,
+                new InventoryItemRepository(),
+                new InventoryMovementRepository()
+        );
+        List<String> productIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String productId = "product-" + i;
+            productRepository.save(Product.builder()
+                    .id(productId)
+                    .sku("SKU-" + i)
+                    .name("Produto " + i)
+                    .category("PIZZA")
+                    .unitPrice(new BigDecimal("10.00"))
+                    .active(true)
+                    .createdAt(Instant.now())
+                    .updatedAt(Instant.now())
+                    .build());
+            inventoryService.applyMovement(InventoryMovementRequest.builder()
+                    .productId(productId)
+                    .type(InventoryMovementType.IN)
+                    .quantity(RESERVATIONS_PER_THREAD)
+                    .reason("INITIAL_STOCK")
+                    .build());
+            productIds.add(productId);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String productId = productIds.get(t);
+                List<OrderItem> items = List.of(OrderItem.builder().productId(productId).nameSnapshot("Pizza").quantity(1).build());
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < RESERVATIONS_PER_THREAD; i++) {
+                        String orderId = productId + "-order-" + i;
+                        if (serialized) {
+                            synchronized (inventoryService) {
+                                inventoryService.reserveStockForOrder(orderId, items);
+                            }
+                            for (int r = 0; r < READS_PER_RESERVATION; r++) {
+                                synchronized (inventoryService) {
+                                    inventoryService.getInventoryByProductId(productId);
+                                }
+                            }
+                        } else {
+                            inventoryService.reserveStockForOrder(orderId, items);
+                            for (int r = 0; r < READS_PER_RESERVATION; r++) {
+                                inventoryService.getInventoryByProductId(productId);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(5, TimeUnit.MINUTES);
+            }
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            for (String productId : productIds) {
+                assertThat(inventoryService.getInventoryByProductId(productId).getQuantityAvailable()).isZero();
+            }
+            return elapsedMillis;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.oryzem.backend.modules.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportResponse;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.service.InventoryImportService;
+import com.oryzem.backend.modules.inventory.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Restock of 2,000 SKUs repeated 50 times, imported as one CSV stream. Run with
+ * {@code mvn test -Dtest=InventoryImportBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InventoryImportBenchmarkTest {
+
+    private static final int PRODUCTS = 2_000;
+    private static final int ROUNDS = 50;
+
+    @Test
+    void measureCsvImportThroughput() throws Exception {
+        ProductRepository productRepository = new ProductRepository();
+        InventoryService inventoryService = new InventoryService(
+                productRepository,
+                new InventoryItemRepository(),
+                new InventoryMovementRepository()
+        );
+        InventoryImportService importService = new InventoryImportService(productRepository, inventoryService, new ObjectMapper());
+        for (int i = 0; i < PRODUCTS; i++) {
+            productRepository.save(Product.builder()
+                    .id("sku-" + i)
+                    .sku("SKU-" + i)
+                    .name("Product " + i)
+                    .category("PIZZA")
+                    .unitPrice(new BigDecimal("10.00"))
+                    .active(true)
+                    .createdAt(Instant.now())
+                    .updatedAt(Instant.now())
+                    .build());
+        }
+
+        StringBuilder csv = new StringBuilder("productId,type,quantity,reason\n");
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < PRODUCTS; i++) {
+                csv.append("sku-").append(i).append(",IN,12,DELIVERY\n");
+            }
+        }
+        byte[] body = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Warm up on a slice, then time the full stream.
+        importService.importMovements(new ByteArrayInputStream(body, 0, body.length / 10), InventoryImportService.Format.CSV);
+        long startedAt = System.nanoTime();
+        InventoryImportResponse response = importService.importMovements(new ByteArrayInputStream(body), InventoryImportService.Format.CSV);
+        long millis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+
+        assertThat(response.getFailedCount()).isZero();
+        System.out.printf("movements=%d import=%dms (%d/s)%n",
+                response.getAppliedCount(), millis, response.getAppliedCount() * 1000 / millis);
+    }
+}
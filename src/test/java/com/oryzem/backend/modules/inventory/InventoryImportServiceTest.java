@@ -0,0 +1,111 @@
+package com.oryzem.backend.modules.inventory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportError;
+import com.oryzem.backend.modules.inventory.dto.InventoryImportResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.service.InventoryImportService;
+import com.oryzem.backend.modules.inventory.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InventoryImportServiceTest {
+
+    private ProductRepository productRepository;
+    private InventoryService inventoryService;
+    private InventoryImportService inventoryImportService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = new ProductRepository();
+        inventoryService = new InventoryService(
+                productRepository,
+                new InventoryItemRepository(),
+                new InventoryMovementRepository()
+        );
+        inventoryImportService = new InventoryImportService(productRepository, inventoryService, new ObjectMapper());
+        createProduct("pizza");
+        createProduct("soda");
+    }
+
+    @Test
+    void shouldApplyValidCsvLinesAndReportTheRest() throws Exception {
+        InventoryImportResponse response = importBody(InventoryImportService.Format.CSV, """
+                productId,type,quantity,reason,referenceOrderId,minimumLevel
+                pizza,IN,10,"DELIVERY, dock 2",,4
+                soda,in,5,DELIVERY
+                ghost,IN,1,DELIVERY
+
+                pizza,OUT,8,WASTE
+                soda,OUT,9,WASTE
+                pizza,IN,two,DELIVERY
+                """);
+
+        assertThat(response.getAppliedCount()).isEqualTo(3);
+        assertThat(response.getFailedCount()).isEqualTo(3);
+        assertThat(response.getErrors())
+                .extracting(InventoryImportError::getLine, InventoryImportError::getProductId)
+                .containsExactly(tuple(4L, "ghost"), tuple(7L, "soda"), tuple(8L, null));
+        assertThat(response.getErrors().get(1).getError()).contains("available=5, requested=9");
+        assertThat(inventoryService.getInventoryByProductId("pizza").getQuantityAvailable()).isEqualTo(2);
+        assertThat(inventoryService.getInventoryByProductId("pizza").getMinimumLevel()).isEqualTo(4);
+        assertThat(inventoryService.getInventoryByProductId("soda").getQuantityAvailable()).isEqualTo(5);
+        assertThat(inventoryService.listMovements("pizza", null, null, null, 10).getItems())
+                .extracting(movement -> movement.getReason())
+                .containsExactly("WASTE", "DELIVERY, dock 2");
+    }
+
+    @Test
+    void shouldImportNdjsonAcrossBatchesWithoutResettingMinimumLevel() throws Exception {
+        inventoryService.applyMovement(InventoryMovementRequest.builder()
+                .productId("soda")
+                .type(InventoryMovementType.IN)
+                .quantity(1)
+                .reason("INITIAL_STOCK")
+                .minimumLevel(3)
+                .build());
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1_200; i++) {
+            body.append("{\"productId\":\"soda\",\"type\":\"IN\",\"quantity\":1,\"reason\":\"DELIVERY\"}\n");
+        }
+        body.append("{\"productId\":\"soda\",\"type\":\"IN\"\n");
+
+        InventoryImportResponse response = importBody(InventoryImportService.Format.NDJSON, body.toString());
+
+        assertThat(response.getAppliedCount()).isEqualTo(1_200);
+        assertThat(response.getErrors()).extracting(InventoryImportError::getLine).containsExactly(1_201L);
+        assertThat(inventoryService.getInventoryByProductId("soda").getQuantityAvailable()).isEqualTo(1_201);
+        assertThat(inventoryService.getInventoryByProductId("soda").getMinimumLevel()).isEqualTo(3);
+    }
+
+    private InventoryImportResponse importBody(InventoryImportService.Format format, String body) throws Exception {
+        return inventoryImportService.importMovements(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private void createProduct(String id) {
+        productRepository.save(Product.builder()
+                .id(id)
+                .sku(id.toUpperCase())
+                .name(id)
+                .category("PIZZA")
+                .unitPrice(new BigDecimal("10.00"))
+                .active(true)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build());
+    }
+}
@@ -0,0 +1,350 @@
+package com.oryzem.backend.modules.inventory;
+
+import com.oryzem.backend.modules.catalog.domain.Product;
+import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.core.events.DomainEvent;
+import com.oryzem.backend.core.events.EventPublisher;
+import com.oryzem.backend.modules.inventory.domain.InsufficientStockException;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovement;
+import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
+import com.oryzem.backend.modules.inventory.config.InventoryHoldProperties;
+import com.oryzem.backend.modules.inventory.domain.StockThresholdCrossedEvent;
+import com.oryzem.backend.modules.inventory.dto.InventoryItemResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementPageResponse;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
+import com.oryzem.backend.modules.inventory.dto.InventoryMovementResponse;
+import com.oryzem.backend.modules.inventory.dto.InventorySnapshotResponse;
+import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
+import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
+import com.oryzem.backend.modules.inventory.service.InventoryService;
+import com.oryzem.backend.modules.inventory.service.StockHoldRegistry;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InventoryServiceTest {
+
+    private ProductRepository productRepository;
+    private InventoryItemRepository inventoryItemRepository;
+    private InventoryMovementRepository inventoryMovementRepository;
+    private InventoryService inventoryService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = new ProductRepository();
+        inventoryItemRepository = new InventoryItemRepository();
+        inventoryMovementRepository = new InventoryMovementRepository();
+        inventoryService = new InventoryService(
+                productRepository,
+                inventoryItemRepository,
+                inventoryMovementRepository
+        );
+    }
+
+    @Test
+    void shouldNeverOversellUnderConcurrentReservations() throws Exception {
+        String pizza = createProduct("PIZZA-MUSSARELA");
+        String soda = createProduct("REFRI-LATA");
+        addStock(pizza, 20);
+        addStock(soda, 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                // Alternate the item order so multi-product reservations lock in opposite orders.
+                List<OrderItem> items = i % 2 == 0
+                        ? List.of(item(pizza, 1), item(soda, 2))
+                        : List.of(item(soda, 2), item(pizza, 1));
+                String orderId = "order-" + i;
+                attempts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        inventoryService.reserveStockForOrder(orderId, items);
+                        return true;
+                    } catch (InsufficientStockException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(10, TimeUnit.SECONDS)) {
+                    reserved++;
+                }
+            }
+            assertThat(reserved).isEqualTo(20);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(inventoryService.getInventoryByProductId(pizza).getQuantityAvailable()).isZero();
+        assertThat(inventoryService.getInventoryByProductId(soda).getQuantityAvailable()).isEqualTo(60);
+    }
+
+    @Test
+    void shouldLeaveStockUntouchedWhenAnyLineOfTheBatchFails() {
+        String pizza = createProduct("PIZZA-FRANGO");
+        String soda = createProduct("REFRI-2L");
+        addStock(pizza, 5);
+        addStock(soda, 1);
+
+        assertThatThrownBy(() -> inventoryService.reserveStockForOrder("order-short", List.of(item(pizza, 2), item(soda, 3))))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining("available=1, requested=3");
+        assertThat(inventoryService.getInventoryByProductId(pizza).getQuantityAvailable()).isEqualTo(5);
+        assertThat(inventoryService.getMovementsByOrderId("order-short")).isEmpty();
+
+        AtomicBoolean journalDown = new AtomicBoolean();
+        InventoryMovementRepository failingMovements = new InventoryMovementRepository() {
+            @Override
+            public void saveAll(List<InventoryMovement> movements) {
+                super.saveAll(movements);
+                if (journalDown.get()) {
+                    throw new IllegalStateException("journal unavailable");
+                }
+            }
+        };
+        inventoryService = new InventoryService(productRepository, inventoryItemRepository, failingMovements);
+        addStock(pizza, 5);
+        addStock(soda, 1);
+        journalDown.set(true);
+        assertThatThrownBy(() -> inventoryService.reserveStockForOrder("order-failed", List.of(item(pizza, 2), item(soda, 1))))
+                .hasMessageContaining("journal unavailable");
+        assertThat(inventoryService.getInventoryByProductId(pizza).getQuantityAvailable()).isEqualTo(5);
+        assertThat(inventoryService.getInventoryByProductId(soda).getQuantityAvailable()).isEqualTo(1);
+        assertThat(inventoryService.getMovementsByOrderId("order-failed")).isEmpty();
+    }
+
+    @Test
+    void shouldPageProductMovementsNewestFirstAndFindThemByOrder() {
+        String pizza = createProduct("PIZZA-CALABRESA");
+        String soda = createProduct("REFRI-GUARANA");
+        addStock(pizza, 10);
+        addStock(soda, 10);
+        addStock(pizza, 5);
+        inventoryService.reserveStockForOrder("order-1", List.of(item(pizza, 2), item(soda, 1)));
+
+        InventoryMovementPageResponse firstPage = inventoryService.listMovements(pizza, null, null, null, 2);
+        assertThat(firstPage.getItems()).extracting(InventoryMovementResponse::getReason)
+                .containsExactly("ORDER_CONFIRMED", "INITIAL_STOCK");
+        assertThat(firstPage.getItems()).extracting(InventoryMovementResponse::getProductId).containsOnly(pizza);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        InventoryMovementPageResponse secondPage = inventoryService.listMovements(pizza, null, null, firstPage.getNextCursor(), 2);
+        assertThat(secondPage.getItems()).extracting(InventoryMovementResponse::getQuantity).containsExactly(10);
+        assertThat(secondPage.getNextCursor()).isNull();
+
+        Instant future = Instant.now().plusSeconds(60);
+        assertThat(inventoryService.listMovements(pizza, future, null, null, 20).getItems()).isEmpty();
+        assertThat(inventoryService.getMovementsByOrderId("order-1"))
+                .extracting(InventoryMovement::getProductId)
+                .containsExactlyInAnyOrder(pizza, soda);
+        assertThatThrownBy(() -> inventoryService.listMovements(pizza, null, null, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldKeepDerivedStockAcrossCompactionAndReplay() throws IOException {
+        String pizza = createProduct("PIZZA-PORTUGUESA");
+        addStock(pizza, 10);
+        inventoryService.reserveStockForOrder("order-old", List.of(item(pizza, 3)));
+
+        assertThat(inventoryMovementRepository.compact(Instant.now().plusSeconds(1))).isEqualTo(2);
+        assertThat(inventoryService.getInventoryByProductId(pizza).getQuantityAvailable()).isEqualTo(7);
+        assertThat(inventoryService.listMovements(pizza, null, null, null, 20).getItems()).isEmpty();
+        assertThat(inventoryService.getMovementsByOrderId("order-old")).isEmpty();
+
+        inventoryService.reserveStockForOrder("order-new", List.of(item(pizza, 2)));
+        assertThat(inventoryService.getInventoryByProductId(pizza).getQuantityAvailable()).isEqualTo(5);
+
+        // Rebuilding from a snapshot starts from the folded quantity and replays only newer movements.
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(snapshot);
+        List<String> tenants = new ArrayList<>();
+        inventoryMovementRepository.writeSnapshot((tenantScope, encoder) -> {
+            tenants.add(tenantScope);
+            encoder.encode(output);
+        });
+        InventoryMovementRepository rebuilt = new InventoryMovementRepository();
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray()));
+        for (String tenantScope : tenants) {
+            rebuilt.apply(tenantScope, input);
+        }
+        assertThat(rebuilt.findBalance(pizza).quantity()).isEqualTo(5);
+        assertThat(rebuilt.findByReferenceOrderId("order-new")).hasSize(1);
+    }
+
+    @Test
+    void shouldReadItemRecordsThatStillCarryAQuantity() throws IOException {
+        // Format 1: productId, stored quantity (ignored), minimumLevel, updatedAt.
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(legacy);
+        output.writeByte(1);
+        output.writeUTF("pizza-legacy");
+        output.writeInt(42);
+        output.writeInt(7);
+        output.writeBoolean(false);
+        inventoryItemRepository.apply("default", new DataInputStream(new ByteArrayInputStream(legacy.toByteArray())));
+        assertThat(inventoryItemRepository.findByProductId("pizza-legacy").orElseThrow().getMinimumLevel()).isEqualTo(7);
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        DataOutputStream snapshotOutput = new DataOutputStream(snapshot);
+        inventoryItemRepository.writeSnapshot((tenantScope, encoder) -> encoder.encode(snapshotOutput));
+        InventoryItemRepository rebuilt = new InventoryItemRepository();
+        rebuilt.apply("default", new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray())));
+        assertThat(rebuilt.findByProductId("pizza-legacy").orElseThrow().getMinimumLevel()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldPublishOnlyThresholdTransitionsAndListLowStock() {
+        List<DomainEvent> events = new ArrayList<>();
+        ReflectionTestUtils.setField(inventoryService, "eventPublisher", (EventPublisher) events::add);
+        String pizza = createProduct("PIZZA-ATUM");
+        restock(pizza, 10, 5);
+
+        inventoryService.reserveStockForOrder("order-1", List.of(item(pizza, 6)));
+        inventoryService.reserveStockForOrder("order-2", List.of(item(pizza, 1)));
+        assertThat(inventoryService.listLowStock())
+                .extracting(InventoryItemResponse::getProductId, InventoryItemResponse::getQuantityAvailable)
+                .containsExactly(tuple(pizza, 3));
+
+        restock(pizza, 2, 5);
+        assertThat(inventoryService.listLowStock()).isEmpty();
+        assertThat(events).hasSize(2);
+        assertThat(events).extracting(event -> ((StockThresholdCrossedEvent) event).belowMinimum()).containsExactly(true, false);
+        assertThat(events).extracting(event -> ((StockThresholdCrossedEvent) event).quantity()).containsExactly(4, 5);
+    }
+
+    @Test
+    void shouldServeConsistentVersionedSnapshotsWhileReservationsRun() throws Exception {
+        String pizza = createProduct("PIZZA-PORTUGUESA");
+        String soda = createProduct("REFRI-ZERO");
+        addStock(pizza, 200);
+        addStock(soda, 400);
+        String version = inventoryService.inventoryVersion();
+        assertThat(inventoryService.getInventorySnapshot().getVersion()).isEqualTo(version);
+        assertThat(inventoryService.inventoryVersion()).isEqualTo(version);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 3; writer++) {
+                int offset = writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = offset; i < 200; i += 3) {
+                        inventoryService.reserveStockForOrder("order-" + i, List.of(item(pizza, 1), item(soda, 2)));
+                    }
+                }));
+            }
+            Future<Integer> reader = executor.submit(() -> {
+                int snapshots = 0;
+                while (writing.get() || snapshots == 0) {
+                    InventorySnapshotResponse snapshot = inventoryService.getInventorySnapshot();
+                    int pizzaLeft = snapshot.getItems().get(0).getQuantityAvailable();
+                    int sodaLeft = snapshot.getItems().get(1).getQuantityAvailable();
+                    // Each order takes one pizza and two sodas in one batch, so never half of it.
+                    assertThat(400 - sodaLeft).isEqualTo(2 * (200 - pizzaLeft));
+                    snapshots++;
+                }
+                return snapshots;
+            });
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            assertThat(reader.get(30, TimeUnit.SECONDS)).isPositive();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InventorySnapshotResponse snapshot = inventoryService.getInventorySnapshot();
+        assertThat(snapshot.getVersion()).isNotEqualTo(version);
+        assertThat(snapshot.getItems())
+                .extracting(InventoryItemResponse::getProductId, InventoryItemResponse::getQuantityAvailable)
+                .containsExactly(tuple(pizza, 0), tuple(soda, 0));
+    }
+
+    @Test
+    void shouldReflectPlacedAndExpiredHoldsInTheSnapshot() {
+        StockHoldRegistry stockHolds = new StockHoldRegistry(new InventoryHoldProperties(true, Duration.ofMinutes(15), 1000L, 512));
+        inventoryService.setStockHolds(stockHolds);
+        String pizza = createProduct("PIZZA-BACON");
+        addStock(pizza, 10);
+
+        inventoryService.holdStockForOrder("order-1", List.of(item(pizza, 4)));
+        InventorySnapshotResponse held = inventoryService.getInventorySnapshot();
+        assertThat(held.getItems())
+                .extracting(InventoryItemResponse::getQuantityAvailable, InventoryItemResponse::getQuantityHeld)
+                .containsExactly(tuple(6, 4));
+
+        stockHolds.expireDue(System.currentTimeMillis() + Duration.ofMinutes(16).toMillis());
+        InventorySnapshotResponse expired = inventoryService.getInventorySnapshot();
+        assertThat(expired.getVersion()).isNotEqualTo(held.getVersion());
+        assertThat(expired.getItems())
+                .extracting(InventoryItemResponse::getQuantityAvailable, InventoryItemResponse::getQuantityHeld)
+                .containsExactly(tuple(10, 0));
+    }
+
+    private String createProduct(String sku) {
+        return productRepository.save(Product.builder()
+                .id(sku.toLowerCase())
+                .sku(sku)
+                .name(sku)
+                .category("PIZZA")
+                .unitPrice(new BigDecimal("10.00"))
+                .active(true)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build()).getId();
+    }
+
+    private void addStock(String productId, int quantity) {
+        inventoryService.applyMovement(InventoryMovementRequest.builder()
+                .productId(productId)
+                .type(InventoryMovementType.IN)
+                .quantity(quantity)
+                .reason("INITIAL_STOCK")
+                .build());
+    }
+
+    private void restock(String productId, int quantity, int minimumLevel) {
+        inventoryService.applyMovement(InventoryMovementRequest.builder()
+                .productId(productId)
+                .type(InventoryMovementType.IN)
+                .quantity(quantity)
+                .reason("RESTOCK")
+                .minimumLevel(minimumLevel)
+                .build());
+    }
+
+    private static OrderItem item(String productId, int quantity) {
+        return OrderItem.builder().productId(productId).nameSnapshot(productId).quantity(quantity).build();
+    }
+}
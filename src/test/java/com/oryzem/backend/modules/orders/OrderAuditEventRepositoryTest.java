@@ -0,0 +1,36 @@
+package com.oryzem.backend.modules.orders;
+
+import com.oryzem.backend.modules.orders.domain.OrderAuditEvent;
+import com.oryzem.backend.modules.orders.repository.OrderAuditEventRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderAuditEventRepositoryTest {
+
+    @Test
+    void shouldIndexEventsByOrderAndIterateByTimeRange() {
+        OrderAuditEventRepository repository = new OrderAuditEventRepository();
+        Instant start = Instant.parse("2026-03-01T00:00:00Z");
+        for (int i = 0; i < 1000; i++) {
+            repository.save(OrderAuditEvent.builder()
+                    .id("evt-" + i)
+                    .orderId(i % 2 == 0 ? "order-even" : "order-odd")
+                    .eventType("ALLOCATION_FAILED")
+                    .message("attempt " + i)
+                    .createdAt(start.plusSeconds(i))
+                    .build());
+        }
+
+        assertThat(repository.findByOrderId("order-even")).hasSize(500)
+                .allMatch(event -> event.getOrderId().equals("order-even"));
+        assertThat(repository.findByOrderId("order-missing")).isEmpty();
+        assertThat(repository.streamByCreatedAtBetween(start.plusSeconds(300), start.plusSeconds(310)))
+                .extracting(OrderAuditEvent::getId)
+                .containsExactly("evt-300", "evt-301", "evt-302", "evt-303", "evt-304",
+                        "evt-305", "evt-306", "evt-307", "evt-308", "evt-309");
+        assertThat(repository.streamByCreatedAtBetween(null, null)).hasSize(1000);
+    }
+}
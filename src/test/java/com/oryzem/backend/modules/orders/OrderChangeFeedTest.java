@@ -0,0 +1,130 @@
+package com.oryzem.backend.modules.orders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.modules.orders.config.OrderStreamProperties;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderSource;
+import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import com.oryzem.backend.modules.orders.service.OrderChangeFeed;
+import com.oryzem.backend.modules.orders.service.OrderChangeFeed.FeedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderChangeFeedTest {
+
+    private OrderChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new OrderChangeFeed(new OrderStreamProperties(4, 2, 0, 0, 2), new ObjectMapper().findAndRegisterModules());
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void shouldResumeAfterLastEventId() throws Exception {
+        feed.publish(order("order-1", OrderStatus.CONFIRMED));
+        feed.publish(order("order-1", OrderStatus.PREPARING));
+        feed.publish(order("order-2", OrderStatus.CONFIRMED));
+
+        RecordingSink first = new RecordingSink(1);
+        feed.subscribe("default", null, first);
+        feed.publish(order("order-3", OrderStatus.RECEIVED));
+        assertThat(first.await()).isTrue();
+        assertThat(first.events).extracting(FeedEvent::name).containsOnly(OrderChangeFeed.CHANGE_EVENT);
+        assertThat(first.events.get(0).data()).contains("\"orderId\":\"order-3\"", "\"status\":\"RECEIVED\"");
+
+        String lastSeen = first.events.get(0).id();
+        feed.publish(order("order-3", OrderStatus.CONFIRMED));
+        RecordingSink resumed = new RecordingSink(1);
+        feed.subscribe("default", lastSeen, resumed);
+        assertThat(resumed.await()).isTrue();
+        assertThat(resumed.events.get(0).data()).contains("\"orderId\":\"order-3\"", "\"status\":\"CONFIRMED\"");
+
+        RecordingSink stale = new RecordingSink(1);
+        feed.subscribe("default", "before-restart-7", stale);
+        assertThat(stale.await()).isTrue();
+        assertThat(stale.events.get(0).name()).isEqualTo(OrderChangeFeed.RESET_EVENT);
+    }
+
+    @Test
+    void shouldResetSlowConnectionInsteadOfBufferingWithoutBound() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(1) {
+            @Override
+            public void send(FeedEvent event) throws IOException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                super.send(event);
+            }
+        };
+        feed.subscribe("default", null, slow);
+
+        for (int i = 0; i < 10; i++) {
+            feed.publish(order("order-" + i, OrderStatus.CONFIRMED));
+        }
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (slow.events.stream().noneMatch(event -> event.name().equals(OrderChangeFeed.RESET_EVENT))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(slow.events).extracting(FeedEvent::name).contains(OrderChangeFeed.RESET_EVENT);
+        assertThat(slow.events.size()).isLessThan(10);
+    }
+
+    private static Order order(String id, OrderStatus status) {
+        return Order.builder()
+                .id(id)
+                .source(OrderSource.INTERNAL)
+                .status(status)
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    private static class RecordingSink implements OrderChangeFeed.Sink {
+
+        private final List<FeedEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received;
+
+        RecordingSink(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        boolean await() throws InterruptedException {
+            return received.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void send(FeedEvent event) throws IOException {
+            events.add(event);
+            received.countDown();
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
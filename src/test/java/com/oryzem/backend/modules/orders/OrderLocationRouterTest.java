@@ -0,0 +1,70 @@
+package com.oryzem.backend.modules.orders;
+
+import com.oryzem.backend.modules.orders.config.OrderRoutingProperties;
+import com.oryzem.backend.modules.orders.domain.OrderNotFoundException;
+import com.oryzem.backend.modules.orders.dto.OrderRoutingStatsResponse;
+import com.oryzem.backend.modules.orders.service.OrderLocationRouter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderLocationRouterTest {
+
+    private final Set<String> canonicalOrders = Set.of("canonical-1");
+    private final List<String> calls = new ArrayList<>();
+
+    private final Function<String, String> canonical = id -> {
+        calls.add("canonical:" + id);
+        if (!canonicalOrders.contains(id)) {
+            throw new OrderNotFoundException(id);
+        }
+        return "canonical";
+    };
+    private final Function<String, String> legacy = id -> {
+        calls.add("legacy:" + id);
+        return "legacy";
+    };
+
+    @Test
+    void shouldRouteKnownOrdersWithoutProbingTheOtherStore() {
+        OrderLocationRouter router = new OrderLocationRouter(new OrderRoutingProperties(100, 1000, 0.01));
+        router.recordLegacy("legacy-1");
+
+        assertThat(router.route("legacy-1", canonical, legacy)).isEqualTo("legacy");
+        assertThat(router.route("canonical-1", canonical, legacy)).isEqualTo("canonical");
+        assertThat(router.route("canonical-1", canonical, legacy)).isEqualTo("canonical");
+        assertThat(router.route("restored-1", canonical, legacy)).isEqualTo("legacy");
+        assertThat(router.route("restored-1", canonical, legacy)).isEqualTo("legacy");
+
+        assertThat(calls).containsExactly(
+                "legacy:legacy-1",
+                "canonical:canonical-1",
+                "canonical:canonical-1",
+                "canonical:restored-1",
+                "legacy:restored-1",
+                "legacy:restored-1"
+        );
+        OrderRoutingStatsResponse stats = router.stats();
+        assertThat(stats.getExactHits()).isEqualTo(3);
+        assertThat(stats.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepRoutingLegacyOrdersAfterTheyLeaveTheExactMap() {
+        OrderLocationRouter router = new OrderLocationRouter(new OrderRoutingProperties(4, 1000, 0.01));
+        for (int i = 0; i < 50; i++) {
+            router.recordLegacy("legacy-" + i);
+        }
+
+        assertThat(router.route("legacy-0", canonical, legacy)).isEqualTo("legacy");
+
+        assertThat(calls).containsExactly("legacy:legacy-0");
+        assertThat(router.stats().getBloomHits()).isEqualTo(1);
+        assertThat(router.stats().getRecentEntries()).isLessThanOrEqualTo(4);
+    }
+}
@@ -1,28 +1,57 @@
 package com.oryzem.backend.modules.orders;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oryzem.backend.core.persistence.PersistenceProperties;
 import com.oryzem.backend.modules.catalog.domain.Product;
 import com.oryzem.backend.modules.catalog.repository.ProductRepository;
+import com.oryzem.backend.modules.inventory.config.InventoryHoldProperties;
 import com.oryzem.backend.modules.inventory.domain.InsufficientStockException;
 import com.oryzem.backend.modules.inventory.domain.InventoryMovementType;
 import com.oryzem.backend.modules.inventory.dto.InventoryMovementRequest;
 import com.oryzem.backend.modules.inventory.repository.InventoryItemRepository;
 import com.oryzem.backend.modules.inventory.repository.InventoryMovementRepository;
 import com.oryzem.backend.modules.inventory.service.InventoryService;
+import com.oryzem.backend.modules.inventory.service.StockHoldRegistry;
+import com.oryzem.backend.modules.orders.config.OrderArchiveProperties;
+import com.oryzem.backend.modules.orders.domain.Order;
+import com.oryzem.backend.modules.orders.domain.OrderAuditEvent;
+import com.oryzem.backend.modules.orders.domain.OrderConcurrencyException;
+import com.oryzem.backend.modules.orders.domain.OrderItem;
 import com.oryzem.backend.modules.orders.domain.OrderSource;
 import com.oryzem.backend.modules.orders.domain.OrderStatus;
+import com.oryzem.backend.modules.orders.dto.BatchCreateOrderResponse;
+import com.oryzem.backend.modules.orders.dto.BatchOrderOutcome;
+import com.oryzem.backend.modules.orders.dto.BatchOrderResult;
 import com.oryzem.backend.modules.orders.dto.CreateOrderRequest;
 import com.oryzem.backend.modules.orders.dto.OrderItemRequest;
+import com.oryzem.backend.modules.orders.dto.OrderPageResponse;
 import com.oryzem.backend.modules.orders.dto.OrderResponse;
 import com.oryzem.backend.modules.orders.repository.OrderAuditEventRepository;
+import com.oryzem.backend.modules.orders.repository.OrderColdStore;
 import com.oryzem.backend.modules.orders.repository.OrderRepository;
+import com.oryzem.backend.modules.orders.service.OrderExportService;
 import com.oryzem.backend.modules.orders.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -126,6 +155,263 @@ class OrderServiceTest {
                 .hasMessageContaining("must be preparing before dispatch");
     }
 
+    @Test
+    void shouldRejectStaleOrderWrite() {
+        Product product = createProduct("PIZZA-PORTUGUESA", "Pizza Portuguesa", new BigDecimal("57.00"));
+        OrderResponse created = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+
+        Order firstReader = orderRepository.findById(created.getId()).orElseThrow();
+        Order secondReader = orderRepository.findById(created.getId()).orElseThrow();
+
+        orderRepository.save(firstReader.toBuilder().status(OrderStatus.CONFIRMED).build());
+
+        Order staleWrite = secondReader.toBuilder().status(OrderStatus.CANCELED).build();
+        assertThatThrownBy(() -> orderRepository.save(staleWrite))
+                .isInstanceOf(OrderConcurrencyException.class)
+                .hasMessageContaining("modified concurrently");
+        assertThat(orderService.getOrderById(created.getId()).getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+    }
+
+    @Test
+    void shouldPageOrdersByStatusNewestFirst() {
+        Product product = createProduct("ESFIHA-CARNE", "Esfiha Carne", new BigDecimal("8.00"));
+        addStock(product.getId(), 10);
+
+        OrderResponse first = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        OrderResponse second = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        OrderResponse third = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        orderService.confirmOrder(second.getId());
+
+        OrderPageResponse firstPage = orderService.listOrders(OrderStatus.RECEIVED, null, null, null, null, 1);
+        OrderPageResponse secondPage = orderService.listOrders(
+                OrderStatus.RECEIVED, null, null, null, firstPage.getNextCursor(), 1);
+        OrderPageResponse lastPage = orderService.listOrders(
+                OrderStatus.RECEIVED, null, null, null, secondPage.getNextCursor(), 1);
+
+        assertThat(firstPage.getItems()).extracting(OrderResponse::getId).containsExactly(third.getId());
+        assertThat(secondPage.getItems()).extracting(OrderResponse::getId).containsExactly(first.getId());
+        assertThat(lastPage.getItems()).isEmpty();
+        assertThat(lastPage.getNextCursor()).isNull();
+        assertThat(orderService.listOrders(OrderStatus.CONFIRMED, null, null, null, null, 10).getItems())
+                .extracting(OrderResponse::getId)
+                .containsExactly(second.getId());
+    }
+
+    @Test
+    void shouldReportPerOrderOutcomesInBatch() {
+        Product product = createProduct("ESFIHA-CARNE", "Esfiha Carne", new BigDecimal("8.50"));
+        CreateOrderRequest external = buildInternalOrder(product.getId(), 2);
+        external.setSource(OrderSource.IFOOD);
+        external.setMerchantId("merchant-1");
+        external.setExternalId("ext-1");
+
+        BatchCreateOrderResponse response = orderService.createOrders(List.of(
+                external,
+                external,
+                buildInternalOrder("missing-product", 1),
+                buildInternalOrder(product.getId(), 1)
+        ));
+
+        assertThat(response.getCreatedCount()).isEqualTo(2);
+        assertThat(response.getDuplicateCount()).isEqualTo(1);
+        assertThat(response.getFailedCount()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BatchOrderResult::getOutcome).containsExactly(
+                BatchOrderOutcome.CREATED,
+                BatchOrderOutcome.DUPLICATE,
+                BatchOrderOutcome.ERROR,
+                BatchOrderOutcome.CREATED
+        );
+        assertThat(response.getResults().get(1).getOrder().getId()).isEqualTo(response.getResults().get(0).getOrder().getId());
+        assertThat(response.getResults().get(2).getError()).contains("Unknown productId");
+    }
+
+    @Test
+    void shouldExportOrdersAsNdjson() throws Exception {
+        Product product = createProduct("SUCO-LARANJA", "Suco Laranja", new BigDecimal("9.00"));
+        for (int i = 0; i < 1203; i++) {
+            orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        }
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        OrderExportService exportService = new OrderExportService(orderService, objectMapper);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long written = exportService.writeNdjson(null, null, output);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(1203);
+        assertThat(lines).hasSize(1203);
+        assertThat(Arrays.stream(lines).map(line -> readId(objectMapper, line)).distinct()).hasSize(1203);
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        Instant future = Instant.now().plusSeconds(3600);
+        assertThat(exportService.writeNdjson(future, future.plusSeconds(60), empty)).isZero();
+    }
+
+    private String readId(ObjectMapper objectMapper, String line) {
+        try {
+            return objectMapper.readTree(line).get("id").asText();
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    void shouldComputeTotalsInMinorUnits() {
+        Product pizza = createProduct("PIZZA-PORTUGUESA", "Pizza Portuguesa", new BigDecimal("59.90"));
+        Product candy = createProduct("BALA-MENTA", "Bala Menta", new BigDecimal("0.10"));
+        CreateOrderRequest request = buildInternalOrder(pizza.getId(), 3);
+        request.getItems().get(0).setUnitPrice(null);
+        request.setItems(List.of(
+                request.getItems().get(0),
+                OrderItemRequest.builder().productId(candy.getId()).quantity(7).unitPrice(new BigDecimal("0.105")).build()
+        ));
+
+        OrderResponse created = orderService.createOrder(request);
+
+        assertThat(created.getTotalAmount()).isEqualTo(new BigDecimal("180.47"));
+        assertThat(created.getItems().get(1).getUnitPrice()).isEqualTo(new BigDecimal("0.11"));
+        assertThat(created.getCurrency()).isEqualTo("BRL");
+    }
+
+    @Test
+    void shouldCreateSingleOrderForConcurrentDuplicateDeliveries() throws Exception {
+        Product product = createProduct("PASTEL-QUEIJO", "Pastel Queijo", new BigDecimal("11.00"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                CreateOrderRequest request = buildInternalOrder(product.getId(), 1);
+                request.setSource(OrderSource.IFOOD);
+                request.setMerchantId("merchant-1");
+                request.setExternalId("ext-" + round);
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<OrderResponse>> deliveries = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    deliveries.add(executor.submit(() -> {
+                        start.await();
+                        return orderService.createOrder(request);
+                    }));
+                }
+                start.countDown();
+
+                Set<String> orderIds = new HashSet<>();
+                for (Future<OrderResponse> delivery : deliveries) {
+                    orderIds.add(delivery.get(10, TimeUnit.SECONDS).getId());
+                }
+                assertThat(orderIds).hasSize(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(orderRepository.findAll()).hasSize(20);
+    }
+
+    @Test
+    void shouldKeepArchivedOrdersReachable() throws Exception {
+        Path directory = Files.createTempDirectory("oryzem-archive-test");
+        OrderArchiveProperties archiveProperties = new OrderArchiveProperties(true, directory.toString(), Duration.ZERO, 0, 2);
+        PersistenceProperties persistenceProperties = new PersistenceProperties(true, directory.toString(), true, 0);
+        orderRepository.setColdStore(new OrderColdStore(archiveProperties, persistenceProperties));
+
+        Product product = createProduct("QUIBE", "Quibe", new BigDecimal("9.50"));
+        CreateOrderRequest marketplaceRequest = buildInternalOrder(product.getId(), 1);
+        marketplaceRequest.setSource(OrderSource.IFOOD);
+        marketplaceRequest.setMerchantId("merchant-1");
+        marketplaceRequest.setExternalId("ext-archived");
+        OrderResponse marketplace = orderService.createOrder(marketplaceRequest);
+        orderService.cancelOrder(marketplace.getId());
+        OrderResponse first = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        orderService.cancelOrder(first.getId());
+        OrderResponse second = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+        orderService.cancelOrder(second.getId());
+        OrderResponse active = orderService.createOrder(buildInternalOrder(product.getId(), 1));
+
+        assertThat(orderRepository.archiveTerminalOrders(Instant.now().plusSeconds(1))).isEqualTo(3);
+
+        assertThat(orderRepository.findAll()).extracting(Order::getId).containsExactly(active.getId());
+        assertThat(orderService.getOrderById(first.getId()).getStatus()).isEqualTo(OrderStatus.CANCELED);
+        assertThat(orderRepository.findByExternalId(OrderSource.IFOOD, "merchant-1", "ext-archived"))
+                .map(Order::getId)
+                .contains(marketplace.getId());
+        assertThat(orderService.listOrders(OrderStatus.CANCELED, null, null, null, null, 10).getItems())
+                .extracting(OrderResponse::getId)
+                .containsExactly(second.getId(), first.getId(), marketplace.getId());
+
+        // A new repository over the same archive file sees the archived orders again.
+        OrderRepository restarted = new OrderRepository();
+        restarted.setColdStore(new OrderColdStore(archiveProperties, persistenceProperties));
+        assertThat(restarted.findById(second.getId())).map(Order::getStatus).contains(OrderStatus.CANCELED);
+        assertThat(restarted.findByExternalId(OrderSource.IFOOD, "merchant-1", "ext-archived")).isPresent();
+
+        // Writing to an archived order brings it back into the hot tier.
+        Order reopened = orderRepository.save(orderRepository.findById(first.getId()).orElseThrow()
+                .toBuilder()
+                .status(OrderStatus.RECEIVED)
+                .build());
+        assertThat(reopened.getVersion()).isEqualTo(3);
+        assertThat(orderRepository.findAll()).extracting(Order::getId).contains(first.getId());
+        assertThat(orderService.listOrders(OrderStatus.CANCELED, null, null, null, null, 10).getItems())
+                .extracting(OrderResponse::getId)
+                .containsExactly(second.getId(), marketplace.getId());
+    }
+
+    @Test
+    void shouldHoldStockForMarketplaceOrdersUntilConfirmedOrExpired() {
+        StockHoldRegistry stockHolds = new StockHoldRegistry(new InventoryHoldProperties(true, Duration.ofMinutes(15), 1000, 64));
+        inventoryService.setStockHolds(stockHolds);
+        Product product = createProduct("ESFIHA-CARNE", "Esfiha Carne", new BigDecimal("6.00"));
+        addStock(product.getId(), 5);
+
+        OrderResponse held = orderService.createOrder(buildMarketplaceOrder(product.getId(), 3, "ext-held"));
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityAvailable()).isEqualTo(2);
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityHeld()).isEqualTo(3);
+
+        // The held units are not available to anyone else, but the holding order can still confirm.
+        OrderResponse internal = orderService.createOrder(buildInternalOrder(product.getId(), 3));
+        assertThatThrownBy(() -> orderService.confirmOrder(internal.getId()))
+                .isInstanceOf(InsufficientStockException.class);
+        orderService.confirmOrder(held.getId());
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityAvailable()).isEqualTo(2);
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityHeld()).isZero();
+
+        OrderResponse unheld = orderService.createOrder(buildMarketplaceOrder(product.getId(), 3, "ext-unheld"));
+        assertThat(auditEventRepository.findByOrderId(unheld.getId()))
+                .extracting(OrderAuditEvent::getEventType)
+                .containsExactly("STOCK_HOLD_FAILED");
+
+        orderService.createOrder(buildMarketplaceOrder(product.getId(), 2, "ext-expiring"));
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityAvailable()).isZero();
+        assertThat(stockHolds.expireDue(System.currentTimeMillis() + Duration.ofMinutes(16).toMillis())).isEqualTo(1);
+        assertThat(inventoryService.getInventoryByProductId(product.getId()).getQuantityAvailable()).isEqualTo(2);
+        assertThat(stockHolds.activeHolds()).isZero();
+    }
+
+    @Test
+    void shouldAcceptASavedOrderWhenTheStepsAfterTheSaveFail() {
+        InventoryService failingHolds = new InventoryService(
+                productRepository,
+                new InventoryItemRepository(),
+                new InventoryMovementRepository()
+        ) {
+            @Override
+            public void holdStockForOrder(String orderId, List<OrderItem> items) {
+                throw new IllegalStateException("Stock holds unavailable");
+            }
+        };
+        orderService = new OrderService(orderRepository, auditEventRepository, productRepository, failingHolds);
+        Product product = createProduct("KIBE-FRITO", "Kibe Frito", new BigDecimal("6.00"));
+
+        OrderResponse created = orderService.createOrder(buildMarketplaceOrder(product.getId(), 1, "ext-unheld"));
+        OrderResponse retried = orderService.createOrder(buildMarketplaceOrder(product.getId(), 1, "ext-unheld"));
+
+        assertThat(created.getMessage()).isEqualTo("Order created successfully");
+        assertThat(retried.getId()).isEqualTo(created.getId());
+        assertThat(auditEventRepository.findByOrderId(created.getId()))
+                .extracting(OrderAuditEvent::getEventType)
+                .containsExactly("STOCK_HOLD_FAILED");
+    }
+
     private Product createProduct(String sku, String name, BigDecimal unitPrice) {
         Product product = Product.builder()
                 .id(UUID.randomUUID().toString())
@@ -150,6 +436,14 @@ class OrderServiceTest {
                 .build());
     }
 
+    private CreateOrderRequest buildMarketplaceOrder(String productId, int quantity, String externalId) {
+        CreateOrderRequest request = buildInternalOrder(productId, quantity);
+        request.setSource(OrderSource.IFOOD);
+        request.setMerchantId("merchant-1");
+        request.setExternalId(externalId);
+        return request;
+    }
+
     private CreateOrderRequest buildInternalOrder(String productId, int quantity) {
         return CreateOrderRequest.builder()
                 .source(OrderSource.INTERNAL)